@@ -43,13 +43,10 @@ cf push -f target/manifest.yml
 resourceService=`cf app resource-service | grep urls | awk '{print $2}'`
 popd
 
-echo "Issue Token for gateway to access backend-service"
-backendToken=`curl -s -X POST -H "Content-Type: multipart/form-data" -F claims='{"aud":"backend", "sub":"gateway" }' -F symkey=$key localhost:8081/token`
-
 echo "Push gateway ..."
 pushd gateway-app
 mvn package
-mvn resources:resources -Djwt_key=$key -Dbackend_url=http://$backendService -Dbackend_token=$backendToken -Dresource_url=http://$resourceService
+mvn resources:resources -Djwt_key=$key -Dbackend_url=http://$backendService -Dresource_url=http://$resourceService
 
 cf push -f target/manifest.yml
 gateway=`cf app gateway | grep urls | awk '{print $2}'`
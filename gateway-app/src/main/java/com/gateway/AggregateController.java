@@ -0,0 +1,140 @@
+package com.gateway;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.jwtdemo.security.ServerTiming;
+
+/**
+ * Calls all the downstream services configured under <code>aggregate.calls</code> in parallel and returns their
+ * responses in one go, so it takes as long as the slowest call rather than the sum of all of them. A call which fails
+ * or times out does not fail the others, its part carries the error instead.
+ *
+ * The timeout of a call bounds its HTTP request, not just our wait for it: see {@link CallDeadline}.
+ *
+ * Calls run on the <code>aggregateExecutor</code>, which carries the user's SecurityContext over to the calling
+ * threads for {@link com.jwtdemo.security.AuthorizationHeaderPropagator}. Each call also carries the request's
+ * {@link ServerTiming} so the timings of all the services end up in our <b>Server-Timing</b> header.
+ */
+@RestController
+public class AggregateController {
+
+	@Autowired
+	AggregateProperties properties;
+
+	@Autowired
+	Map<String, RestTemplate> restTemplates;
+
+	@Autowired
+	@Qualifier("aggregateExecutor")
+	ExecutorService executor;
+
+	@PostConstruct
+	void checkClients() {
+		properties.getCalls().forEach((name, call) -> {
+			if (!restTemplates.containsKey(call.getClient())) {
+				throw new IllegalStateException("aggregate.calls." + name + ".client must be one of " + restTemplates.keySet());
+			}
+		});
+	}
+
+	@GetMapping("/aggregate")
+	public Map<String, Part> aggregate() throws InterruptedException {
+		long start = System.nanoTime();
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		List<CallDeadline> deadlines = new ArrayList<>();
+		for (AggregateProperties.Call call : properties.getCalls().values()) {
+			RestTemplate restTemplate = restTemplates.get(call.getClient());
+			CallDeadline deadline = new CallDeadline(start, call.getTimeout());
+			deadlines.add(deadline);
+			futures.add(CompletableFuture.supplyAsync(ServerTiming.propagate(deadline.bind(() ->
+				restTemplate.exchange(call.getUrl(), HttpMethod.GET, null, String.class, Collections.emptyMap()).getBody())), executor));
+		}
+
+		Map<String, Part> parts = new LinkedHashMap<>();
+		int i = 0;
+		for (String name : properties.getCalls().keySet()) {
+			parts.put(name, await(futures.get(i), deadlines.get(i)));
+			i++;
+		}
+		return parts;
+	}
+
+	private static Part await(CompletableFuture<String> future, CallDeadline deadline) throws InterruptedException {
+		try {
+			return Part.ok(future.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS));
+		} catch (TimeoutException e) {
+			// frees the calling thread and the connection, interrupting the thread would not
+			deadline.abort();
+			future.cancel(true);
+			return Part.failed(HttpStatus.GATEWAY_TIMEOUT, "Timed out");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof HttpStatusCodeException) {
+				return Part.failed(((HttpStatusCodeException) cause).getStatusCode(), cause.getMessage());
+			}
+			if (cause instanceof AccessDeniedException) {
+				return Part.failed(HttpStatus.FORBIDDEN, cause.getMessage());
+			}
+			return Part.failed(HttpStatus.BAD_GATEWAY, cause.getMessage());
+		}
+	}
+
+	/**
+	 * Response of one downstream service
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class Part {
+		private final int status;
+		private final String body;
+		private final String error;
+
+		private Part(int status, String body, String error) {
+			this.status = status;
+			this.body = body;
+			this.error = error;
+		}
+
+		static Part ok(String body) {
+			return new Part(HttpStatus.OK.value(), body, null);
+		}
+
+		static Part failed(HttpStatus status, String error) {
+			return new Part(status.value(), null, StringUtils.hasText(error) ? error : status.getReasonPhrase());
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public String getBody() {
+			return body;
+		}
+
+		public String getError() {
+			return error;
+		}
+	}
+}
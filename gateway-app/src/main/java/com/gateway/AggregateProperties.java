@@ -0,0 +1,79 @@
+package com.gateway;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Downstream services called by <code>GET /aggregate</code>, see {@link AggregateController}
+ *
+ */
+@Configuration
+@ConfigurationProperties(prefix = "aggregate")
+class AggregateProperties {
+
+	/**
+	 * Platform threads making the calls. With <code>gateway.virtualThreads</code> each call gets its own virtual
+	 * thread instead.
+	 */
+	private int threads = 50;
+
+	/**
+	 * Calls indexed by the name of their part in the aggregated response
+	 */
+	private final Map<String, Call> calls = new LinkedHashMap<>();
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public Map<String, Call> getCalls() {
+		return calls;
+	}
+
+	public static class Call {
+
+		private String url;
+
+		/**
+		 * RestTemplate making the call: <code>resource</code> propagates the user's token, <code>backend</code> sends
+		 * the gateway's own token
+		 */
+		private String client;
+
+		/**
+		 * Milliseconds we wait for the response
+		 */
+		private long timeout = 2000;
+
+		public String getUrl() {
+			return url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		public String getClient() {
+			return client;
+		}
+
+		public void setClient(String client) {
+			this.client = client;
+		}
+
+		public long getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.gateway;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * Deadline of the downstream call the current thread is making, see {@link AggregateController}. The pools of
+ * {@link HttpClientPool} cut the connect, connection request and socket timeouts of the call's HTTP request to the time
+ * left, and {@link #abort()} aborts that request from any thread, which unblocks the thread waiting on it.
+ *
+ * Cancelling the future of the call is not enough: interrupting a thread does not interrupt its socket reads.
+ *
+ */
+final class CallDeadline {
+
+	private static final ThreadLocal<CallDeadline> CURRENT = new ThreadLocal<>();
+
+	private final long deadlineNanos;
+	private volatile HttpRequestBase request;
+	private volatile boolean aborted;
+
+	CallDeadline(long startNanos, long timeoutMillis) {
+		this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	}
+
+	/**
+	 * @return <code>call</code> running with this deadline on whichever thread runs it
+	 */
+	<T> Supplier<T> bind(Supplier<T> call) {
+		return () -> {
+			CURRENT.set(this);
+			try {
+				return call.get();
+			} finally {
+				CURRENT.remove();
+			}
+		};
+	}
+
+	/**
+	 * @return the deadline of the call the current thread is making, if any
+	 */
+	static CallDeadline current() {
+		return CURRENT.get();
+	}
+
+	long remainingNanos() {
+		return deadlineNanos - System.nanoTime();
+	}
+
+	/**
+	 * @return the milliseconds left, at least 1 as 0 means no timeout to HttpClient
+	 */
+	int remainingMillis() {
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(remainingNanos())));
+	}
+
+	/**
+	 * Called with the HTTP request of the call before it is executed
+	 */
+	void attach(HttpRequestBase request) {
+		this.request = request;
+		if (aborted) {
+			request.abort();
+		}
+	}
+
+	void abort() {
+		aborted = true;
+		HttpRequestBase attached = request;
+		if (attached != null) {
+			attached.abort();
+		}
+	}
+}
@@ -1,40 +1,134 @@
 package com.gateway;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
 import com.jwtdemo.security.AuthorizationHeaderInjector;
 import com.jwtdemo.security.AuthorizationHeaderPropagator;
+import com.jwtdemo.security.JwtMetrics;
+import com.jwtdemo.security.ServerTimingPropagator;
+import com.jwtdemo.security.ServiceTokenManager;
+import com.jwtdemo.security.TokenExchanger;
 
 @SpringBootApplication
 public class GatewayAppApplication {
 
+	@Bean
+	@ConfigurationProperties("resource.pool")
+	public HttpClientPool resourcePool() {
+		return new HttpClientPool("resource");
+	}
+
+	@Bean
+	@ConfigurationProperties("backend.pool")
+	public HttpClientPool backendPool() {
+		return new HttpClientPool("backend");
+	}
+
+	@Bean
+	public PublicMetrics httpClientPoolMetrics(List<HttpClientPool> pools) {
+		return new HttpClientPoolMetrics(pools);
+	}
+
+	@Bean
+	@ConfigurationProperties("gateway.responseCache")
+	public ResponseCache responseCache() {
+		return new ResponseCache();
+	}
+
+	@Bean
+	public PublicMetrics responseCacheMetrics() {
+		return new ResponseCacheMetrics(responseCache());
+	}
+
+	/**
+	 * Calls resource-service on behalf of the user, with the user's token downscoped to aud=resource (jwt.tokenExchange)
+	 */
 	@Bean(name = "resource")
-	public RestTemplate resourceTemplate() {
-		RestTemplate restTemplate = new RestTemplate();
+	public RestTemplate resourceTemplate(TokenExchanger resourceTokenExchanger, ObjectProvider<JwtMetrics> jwtMetrics) {
+		RestTemplate restTemplate = new RestTemplate(resourcePool().getRequestFactory());
 		restTemplate.setErrorHandler(new CustomResponseErrorHandler());
-		restTemplate.setInterceptors(Collections.singletonList(new AuthorizationHeaderPropagator()));
+		AuthorizationHeaderPropagator propagator = new AuthorizationHeaderPropagator(resourceTokenExchanger);
+		if (jwtMetrics.getIfAvailable() != null) {
+			propagator.setMetrics(jwtMetrics.getIfAvailable(), "resource");
+		}
+		restTemplate.setInterceptors(Arrays.asList(propagator, new ServerTimingPropagator("resource")));
 		return restTemplate;
 	}
 	
+	/**
+	 * Calls backend-service with the gateway's own token (jwt.serviceToken), renewed before it expires
+	 */
 	@Bean(name = "backend")
-	public RestTemplate backendTemplate(@Value("${backend.token}") String token) {
-		RestTemplate restTemplate = new RestTemplate();
+	public RestTemplate backendTemplate(ServiceTokenManager backendToken, ObjectProvider<JwtMetrics> jwtMetrics) {
+		RestTemplate restTemplate = new RestTemplate(backendPool().getRequestFactory());
 		restTemplate.setErrorHandler(new CustomResponseErrorHandler());
-		restTemplate.setInterceptors(Collections.singletonList(new AuthorizationHeaderInjector(token)));
+		AuthorizationHeaderInjector injector = new AuthorizationHeaderInjector(backendToken);
+		if (jwtMetrics.getIfAvailable() != null) {
+			injector.setMetrics(jwtMetrics.getIfAvailable(), "backend");
+		}
+		restTemplate.setInterceptors(Arrays.asList(injector, new ServerTimingPropagator("backend")));
 		return restTemplate;
 	}
 	
+	/**
+	 * Routes of <code>proxy.routes</code>, ahead of the controllers' mappings
+	 */
+	@Bean
+	public SimpleUrlHandlerMapping proxyHandlerMapping(ProxyProperties properties, Map<String, RestTemplate> restTemplates, 
+			List<HttpClientPool> pools) {
+		Map<String, Object> urlMap = new LinkedHashMap<>();
+		properties.getRoutes().forEach((name, route) -> {
+			RestTemplate restTemplate = restTemplates.get(route.getClient());
+			HttpClientPool pool = pools.stream().filter(p -> p.getName().equals(route.getClient())).findFirst().orElse(null);
+			if (restTemplate == null || pool == null) {
+				throw new IllegalStateException("proxy.routes." + name + ".client must be one of " + restTemplates.keySet());
+			}
+			ProxyHandler handler = new ProxyHandler(name, route, pool, restTemplate, responseCache(), properties.getBufferSize());
+			urlMap.put(route.getPath(), handler);
+			urlMap.put(route.getPath() + "/**", handler);
+		});
+		SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping();
+		mapping.setUrlMap(urlMap);
+		mapping.setOrder(-1);
+		return mapping;
+	}
+	
+	/**
+	 * Threads calling downstream services on behalf of {@link AggregateController}. They see the SecurityContext of
+	 * the request which submitted the call.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService aggregateExecutor(AggregateProperties properties, 
+			@Value("${gateway.virtualThreads:false}") boolean virtualThreads) {
+		ExecutorService executor = virtualThreads ? VirtualThreadsConfiguration.virtualThreadExecutor("gateway-aggregate-") : null;
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(properties.getThreads(), new CustomizableThreadFactory("gateway-aggregate-"));
+		}
+		return new DelegatingSecurityContextExecutorService(executor);
+	}
+	
 	public static void main(String[] args) {
 		SpringApplication.run(GatewayAppApplication.class, args);
 	}
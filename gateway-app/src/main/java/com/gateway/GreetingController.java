@@ -7,21 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
 
+import com.jwtdemo.security.RequiresAuthority;
+
+/**
+ * Requests to <code>/resource</code> are proxied to resource-service, see <code>proxy.routes</code>
+ *
+ */
 @RestController
 public class GreetingController {
 
-	@Autowired
-	@Qualifier("resource")
-	RestTemplate resourceRestTemplate;
-	private @Value("${resource.url:http://localhost:8082/}") String resourceUrl;
-	
 	@Autowired
 	@Qualifier("backend")
 	RestTemplate backendRestTemplate;
@@ -33,22 +31,11 @@ public class GreetingController {
 	}
 	
 	@GetMapping("/admin")
-	@PreAuthorize("hasAuthority('ADMIN')")
+	@RequiresAuthority("ADMIN")
 	public String admin(Principal principal) {
 		return "executed admin task for " + principal.getName();
 	}
 	
-	@GetMapping("/resource")
-	public String read() {
-		 ResponseEntity<String> response = resourceRestTemplate.exchange(resourceUrl, HttpMethod.GET, null, String.class, Collections.emptyMap());
-		 return response.getBody();
-	}
-	@PostMapping("/resource")
-	public String write() {
-		ResponseEntity<String> response =  resourceRestTemplate.exchange(resourceUrl, HttpMethod.POST, null, String.class, Collections.emptyMap());
-		return response.getBody();
-	}
-	
 	@GetMapping("/backend")
 	public void backend() {
 		backendRestTemplate.exchange(backendUrl, HttpMethod.GET, null, Void.class, Collections.emptyMap());
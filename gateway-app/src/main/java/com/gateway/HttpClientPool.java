@@ -0,0 +1,218 @@
+package com.gateway;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Pool of keep-alive connections to one downstream service. Properties are bound from
+ * <code>&lt;downstream&gt;.pool.*</code> (e.g. <code>resource.pool.maxConnections</code>) and the pool is built once
+ * they are set. All times are in milliseconds.
+ *
+ * Without a pool, RestTemplate opens (and closes) connections with HttpURLConnection which only keeps a handful of
+ * idle connections per host. Under load that means a new TCP connection for most calls and lots of sockets in
+ * TIME_WAIT.
+ *
+ */
+public class HttpClientPool implements InitializingBean, DisposableBean {
+
+	private final String name;
+
+	/**
+	 * Connections we open to the downstream service (it is a single route)
+	 */
+	private int maxConnections = 100;
+
+	private int connectTimeout = 2000;
+
+	private int readTimeout = 10000;
+
+	/**
+	 * How long we wait for a connection when all of them are leased
+	 */
+	private int connectionRequestTimeout = 2000;
+
+	/**
+	 * How long we keep a connection open when the server does not say it with a <code>Keep-Alive</code> header. Also
+	 * the maximum we keep it when the server does.
+	 */
+	private long keepAlive = 30000;
+
+	/**
+	 * Connections idle for longer than this are closed by a background thread
+	 */
+	private long idleTimeout = 30000;
+
+	/**
+	 * Stream request bodies to the downstream service rather than buffering them in memory. Response bodies are
+	 * always streamed.
+	 */
+	private boolean streaming;
+
+	private RequestConfig requestConfig;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private HttpComponentsClientHttpRequestFactory requestFactory;
+	private HttpComponentsClientHttpRequestFactory streamingRequestFactory;
+
+	public HttpClientPool(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+		requestConfig = RequestConfig.custom()
+				.setConnectTimeout(connectTimeout)
+				.setSocketTimeout(readTimeout)
+				.setConnectionRequestTimeout(connectionRequestTimeout)
+				.build();
+
+		httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy(keepAliveStrategy())
+				.evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+				.evictExpiredConnections()
+				// connections are shared by all the users, cookies must not be
+				.disableCookieManagement()
+				.build();
+
+		requestFactory = new DeadlineAwareRequestFactory(httpClient);
+		requestFactory.setBufferRequestBody(!streaming);
+		streamingRequestFactory = new DeadlineAwareRequestFactory(httpClient);
+		streamingRequestFactory.setBufferRequestBody(false);
+	}
+
+	private ConnectionKeepAliveStrategy keepAliveStrategy() {
+		return (response, context) -> {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+		};
+	}
+
+	/**
+	 * Requests made on behalf of a {@link CallDeadline} get timeouts no longer than the time it has left, and it can
+	 * abort them
+	 */
+	private class DeadlineAwareRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+		DeadlineAwareRequestFactory(CloseableHttpClient httpClient) {
+			super(httpClient);
+		}
+
+		@Override
+		protected void postProcessHttpRequest(HttpUriRequest request) {
+			CallDeadline deadline = CallDeadline.current();
+			if (deadline == null || !(request instanceof HttpRequestBase)) {
+				return;
+			}
+			int remaining = deadline.remainingMillis();
+			((HttpRequestBase) request).setConfig(RequestConfig.copy(requestConfig)
+					.setConnectTimeout(Math.min(connectTimeout, remaining))
+					.setConnectionRequestTimeout(Math.min(connectionRequestTimeout, remaining))
+					.setSocketTimeout(Math.min(readTimeout, remaining))
+					.build());
+			deadline.attach((HttpRequestBase) request);
+		}
+	}
+
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	/**
+	 * Same connections as {@link #getRequestFactory()}, but request bodies are always streamed
+	 */
+	public ClientHttpRequestFactory getStreamingRequestFactory() {
+		return streamingRequestFactory;
+	}
+
+	/**
+	 * @return leased, pending (waiting for a connection), available (idle) and max connections
+	 */
+	public PoolStats getStats() {
+		return connectionManager.getTotalStats();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		httpClient.close();
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public int getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	public long getKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+}
@@ -0,0 +1,37 @@
+package com.gateway;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Exposes the connections of each {@link HttpClientPool} in <code>/metrics</code>, e.g.
+ * <code>httpclient.resource.leased</code>
+ *
+ */
+class HttpClientPoolMetrics implements PublicMetrics {
+
+	private final Collection<HttpClientPool> pools;
+
+	HttpClientPoolMetrics(Collection<HttpClientPool> pools) {
+		this.pools = pools;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		for (HttpClientPool pool : pools) {
+			PoolStats stats = pool.getStats();
+			String prefix = "httpclient." + pool.getName() + ".";
+			metrics.add(new Metric<>(prefix + "leased", stats.getLeased()));
+			metrics.add(new Metric<>(prefix + "pending", stats.getPending()));
+			metrics.add(new Metric<>(prefix + "available", stats.getAvailable()));
+			metrics.add(new Metric<>(prefix + "max", stats.getMax()));
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,313 @@
+package com.gateway;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.jwtdemo.security.AuthenticatedUser;
+import com.jwtdemo.security.ServerTiming;
+
+/**
+ * Proxies the requests of one route of <code>proxy.routes</code> to its downstream service. Request and response
+ * bodies are streamed through a single buffer of <code>proxy.bufferSize</code> bytes, so a request takes the same
+ * memory whatever the size of its bodies.
+ *
+ * Calls go through the interceptors of the route's RestTemplate, so they carry the same <b>Authorization</b> (and
+ * <b>X-Request-Id</b>) headers as the RestTemplate's calls. RestTemplate itself is not used: with interceptors it
+ * buffers request bodies in memory. Downstream responses, errors included, are returned as they are.
+ *
+ * GETs of routes with <code>cache</code> go through the {@link ResponseCache} instead, when it is enabled. Their
+ * responses are buffered in memory, whatever their size, and only their status, body and {@link #CACHED_HEADERS}
+ * are kept and replayed: the other headers may be specific to one response.
+ *
+ */
+class ProxyHandler implements HttpRequestHandler {
+
+	private static final Log logger = LogFactory.getLog(ProxyHandler.class);
+
+	private static final byte[] NO_BODY = new byte[0];
+
+	// unreserved, sub-delims, ':', '@', '/' and '?' (RFC 3986)
+	private static final String QUERY_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~!$&'()*+,;=:@/?";
+
+	private static final Set<String> HOP_BY_HOP = new HashSet<>(Arrays.asList("connection", "keep-alive",
+			"proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade"));
+
+	// set by the interceptors and the gateway itself
+	private static final Set<String> NOT_FORWARDED = new HashSet<>(Arrays.asList("host", "authorization"));
+	private static final Set<String> NOT_RETURNED = new HashSet<>(Arrays.asList(
+			ServerTiming.HEADER.toLowerCase(), ServerTiming.REQUEST_ID_HEADER.toLowerCase()));
+
+	private final String name;
+	private final String path;
+	private final String url;
+	private final ClientHttpRequestFactory requestFactory;
+	private final List<ClientHttpRequestInterceptor> interceptors;
+	private final int bufferSize;
+	private final ResponseCache responseCache;
+
+	ProxyHandler(String name, ProxyProperties.Route route, HttpClientPool pool, RestTemplate restTemplate,
+			ResponseCache responseCache, int bufferSize) {
+		this.name = name;
+		this.path = stripTrailingSlash(route.getPath());
+		this.url = stripTrailingSlash(route.getUrl());
+		this.requestFactory = pool.getStreamingRequestFactory();
+		this.interceptors = restTemplate.getInterceptors();
+		this.bufferSize = bufferSize;
+		this.responseCache = route.isCache() && responseCache.isEnabled() ? responseCache : null;
+	}
+
+	@Override
+	public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		HttpMethod method = HttpMethod.resolve(request.getMethod());
+		if (method == null) {
+			response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+			return;
+		}
+		URI target = target(request);
+		if (target == null) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (responseCache != null && method == HttpMethod.GET && authentication != null
+				&& authentication.getPrincipal() instanceof AuthenticatedUser) {
+			ResponseEntity<byte[]> cached;
+			try {
+				cached = responseCache.get(name + ' ' + target, (AuthenticatedUser) authentication.getPrincipal(),
+						etag -> fetch(target, etag));
+			} catch (UncheckedIOException e) {
+				logger.warn("Proxying to " + target + " failed: " + e.getCause().getMessage());
+				response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+				return;
+			}
+			response.setStatus(cached.getStatusCodeValue());
+			copyResponseHeaders(cached.getHeaders(), response);
+			if (cached.getBody() != null) {
+				response.getOutputStream().write(cached.getBody());
+			}
+			return;
+		}
+
+		byte[] buffer = new byte[bufferSize];
+		ClientHttpRequest outbound = requestFactory.createRequest(target, method);
+		copyRequestHeaders(request, outbound.getHeaders());
+		InputStream requestBody = hasBody(request) ? request.getInputStream() : null;
+		ClientHttpResponse downstream;
+		try {
+			downstream = new StreamingExecution(outbound, requestBody, buffer).execute(outbound, NO_BODY);
+		} catch (IOException e) {
+			logger.warn("Proxying to " + target + " failed: " + e.getMessage());
+			if (!response.isCommitted()) {
+				response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+			}
+			return;
+		}
+		try {
+			response.setStatus(downstream.getRawStatusCode());
+			copyResponseHeaders(downstream.getHeaders(), response);
+			InputStream responseBody = downstream.getBody();
+			if (responseBody != null) {
+				copy(responseBody, response.getOutputStream(), buffer);
+			}
+		} finally {
+			// gives the connection back to the pool, or closes it if the body was not fully read
+			downstream.close();
+		}
+	}
+
+	/**
+	 * Fetches a whole response for the {@link ResponseCache}, through the same interceptors as the streamed calls
+	 * and without the RestTemplate's error handler, so that errors are returned as they are too
+	 */
+	private ResponseEntity<byte[]> fetch(URI target, String etag) {
+		try {
+			ClientHttpRequest outbound = requestFactory.createRequest(target, HttpMethod.GET);
+			if (etag != null) {
+				outbound.getHeaders().setIfNoneMatch(etag);
+			}
+			try (ClientHttpResponse downstream = new StreamingExecution(outbound, null, null).execute(outbound, NO_BODY)) {
+				HttpHeaders headers = new HttpHeaders();
+				for (String header : CACHED_HEADERS) {
+					List<String> values = downstream.getHeaders().get(header);
+					if (values != null) {
+						headers.put(header, values);
+					}
+				}
+				InputStream body = downstream.getBody();
+				return new ResponseEntity<>(body == null ? NO_BODY : StreamUtils.copyToByteArray(body), headers,
+						status(downstream.getRawStatusCode()));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static HttpStatus status(int code) {
+		try {
+			return HttpStatus.valueOf(code);
+		} catch (IllegalArgumentException e) {
+			// ResponseEntity only takes known statuses
+			return HttpStatus.BAD_GATEWAY;
+		}
+	}
+
+	/**
+	 * The path is the one the request was mapped with, decoded and normalized by the container (no dot segments nor
+	 * <code>;</code> parameters), and encoded again. The raw request URI could be cut at the wrong place.
+	 *
+	 * @return the downstream URI, or null if the request's path is not under ours
+	 */
+	private URI target(HttpServletRequest request) {
+		String mapped = request.getServletPath() + (request.getPathInfo() == null ? "" : request.getPathInfo());
+		if (!mapped.startsWith(path) || mapped.length() > path.length() && mapped.charAt(path.length()) != '/') {
+			return null;
+		}
+		String remainder = mapped.substring(path.length());
+		try {
+			UriComponents encodedPath = UriComponentsBuilder.fromHttpUrl(url).path(remainder).build().encode();
+			return UriComponentsBuilder.newInstance().uriComponents(encodedPath)
+					.query(encodeQuery(request.getQueryString())).build(true).toUri();
+		} catch (IllegalArgumentException e) {
+			logger.debug("Invalid request to proxy: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * The query is passed on as the caller encoded it, but for the characters a URI cannot hold, which the container
+	 * lets through (e.g. <code>|</code> or a lone <code>%</code>)
+	 */
+	static String encodeQuery(String query) {
+		if (query == null) {
+			return null;
+		}
+		StringBuilder encoded = new StringBuilder(query.length());
+		byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) {
+			int b = bytes[i] & 0xff;
+			boolean escape = b == '%' && i + 2 < bytes.length && isHex(bytes[i + 1]) && isHex(bytes[i + 2]);
+			if (escape || b < 128 && QUERY_CHARS.indexOf(b) >= 0) {
+				encoded.append((char) b);
+			} else {
+				encoded.append('%').append(Character.toUpperCase(Character.forDigit(b >> 4, 16)))
+						.append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+			}
+		}
+		return encoded.toString();
+	}
+
+	private static boolean isHex(byte b) {
+		return b >= '0' && b <= '9' || b >= 'a' && b <= 'f' || b >= 'A' && b <= 'F';
+	}
+
+	private static boolean hasBody(HttpServletRequest request) {
+		return request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+	}
+
+	private static void copyRequestHeaders(HttpServletRequest request, HttpHeaders headers) {
+		Enumeration<String> names = request.getHeaderNames();
+		while (names.hasMoreElements()) {
+			String header = names.nextElement();
+			String lowerCase = header.toLowerCase();
+			if (!HOP_BY_HOP.contains(lowerCase) && !NOT_FORWARDED.contains(lowerCase)) {
+				headers.put(header, Collections.list(request.getHeaders(header)));
+			}
+		}
+	}
+
+	private static void copyResponseHeaders(HttpHeaders headers, HttpServletResponse response) {
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			String lowerCase = header.getKey().toLowerCase();
+			if (HOP_BY_HOP.contains(lowerCase) || NOT_RETURNED.contains(lowerCase)) {
+				continue;
+			}
+			for (String value : header.getValue()) {
+				response.addHeader(header.getKey(), value);
+			}
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		out.flush();
+	}
+
+	private static String stripTrailingSlash(String value) {
+		return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+	}
+
+	/**
+	 * Runs the interceptors on the request's headers and then streams the request body, which the interceptors
+	 * never see, to the downstream service
+	 */
+	private class StreamingExecution implements ClientHttpRequestExecution {
+
+		private final Iterator<ClientHttpRequestInterceptor> iterator = interceptors.iterator();
+		private final ClientHttpRequest outbound;
+		private final InputStream body;
+		private final byte[] buffer;
+
+		StreamingExecution(ClientHttpRequest outbound, InputStream body, byte[] buffer) {
+			this.outbound = outbound;
+			this.body = body;
+			this.buffer = buffer;
+		}
+
+		@Override
+		public ClientHttpResponse execute(HttpRequest request, byte[] ignored) throws IOException {
+			if (iterator.hasNext()) {
+				return iterator.next().intercept(request, ignored, this);
+			}
+			if (request.getHeaders() != outbound.getHeaders()) {
+				outbound.getHeaders().putAll(request.getHeaders());
+			}
+			if (body != null) {
+				if (outbound instanceof StreamingHttpOutputMessage) {
+					((StreamingHttpOutputMessage) outbound).setBody(out -> copy(body, out, buffer));
+				} else {
+					copy(body, outbound.getBody(), buffer);
+				}
+			}
+			return outbound.execute();
+		}
+	}
+}
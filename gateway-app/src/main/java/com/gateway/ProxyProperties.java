@@ -0,0 +1,93 @@
+package com.gateway;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Downstream services proxied by the gateway, see {@link ProxyHandler}
+ *
+ */
+@Configuration
+@ConfigurationProperties(prefix = "proxy")
+class ProxyProperties {
+
+	/**
+	 * Bytes we copy at a time, each proxied request uses one buffer whatever the size of its bodies
+	 */
+	private int bufferSize = 8192;
+
+	/**
+	 * Routes indexed by name
+	 */
+	private final Map<String, Route> routes = new LinkedHashMap<>();
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public Map<String, Route> getRoutes() {
+		return routes;
+	}
+
+	public static class Route {
+
+		/**
+		 * Requests to this path and everything under it go to <code>url</code>, e.g. <code>/resource/a</code> to
+		 * <code>{url}/a</code>
+		 */
+		private String path;
+
+		private String url;
+
+		/**
+		 * RestTemplate whose interceptors and connection pool we use: <code>resource</code> propagates the user's
+		 * token, <code>backend</code> sends the gateway's own token
+		 */
+		private String client;
+
+		/**
+		 * GETs go through the <code>gateway.responseCache</code>, when it is enabled, rather than being streamed. Their
+		 * responses are buffered, and only their status, body and content headers are replayed.
+		 */
+		private boolean cache;
+
+		public String getPath() {
+			return path;
+		}
+
+		public void setPath(String path) {
+			this.path = path;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		public String getClient() {
+			return client;
+		}
+
+		public void setClient(String client) {
+			this.client = client;
+		}
+
+		public boolean isCache() {
+			return cache;
+		}
+
+		public void setCache(boolean cache) {
+			this.cache = cache;
+		}
+	}
+}
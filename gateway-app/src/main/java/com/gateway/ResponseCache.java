@@ -0,0 +1,232 @@
+package com.gateway;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.jwtdemo.security.AuthenticatedUser;
+import com.jwtdemo.security.BoundedExpiringCache;
+
+/**
+ * Bounded cache of the responses of downstream services to authorized GETs, keyed by route, subject and authorities.
+ * The authorities are the starter's interned {@link com.jwtdemo.security.AuthoritySet}s, so comparing them is
+ * cheap. Properties are bound from <code>gateway.responseCache.*</code>. It is disabled unless <code>maxSize</code>
+ * is greater than 0.
+ *
+ * A response is served as it is for <code>ttl</code> milliseconds. After that, it is revalidated with its
+ * <b>ETag</b> and an <b>If-None-Match</b> request, and a <code>304</code> keeps it for another <code>ttl</code>.
+ * Nothing is kept beyond the <code>exp</code> of the token it was fetched with. Concurrent misses for the same key
+ * make a single downstream call, whose response or error all of them get.
+ *
+ * Responses are kept whole: status, the headers the caller's <code>fetch</code> kept and the body. Only
+ * <code>200</code> responses are cached, any other is returned as it is to the caller which fetched it (and to those
+ * coalesced with it). The downstream's own <b>Cache-Control</b> is not looked at, since the starter sends
+ * <code>no-store</code> to browsers on every response.
+ *
+ */
+public class ResponseCache implements InitializingBean {
+
+	/**
+	 * Responses we keep, 0 disables the cache
+	 */
+	private int maxSize;
+
+	/**
+	 * How long we serve a response without revalidating it, in milliseconds
+	 */
+	private long ttl = 30000;
+
+	private BoundedExpiringCache<Key, Response> responses;
+	private final ConcurrentHashMap<Key, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder fresh = new LongAdder();
+	private final LongAdder revalidated = new LongAdder();
+	private final LongAdder fetched = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	@Override
+	public void afterPropertiesSet() {
+		if (maxSize > 0) {
+			responses = new BoundedExpiringCache<>(maxSize);
+		}
+	}
+
+	public boolean isEnabled() {
+		return responses != null;
+	}
+
+	/**
+	 * @param route identifies the downstream resource
+	 * @param fetch calls the downstream resource, with <b>If-None-Match</b> when the etag it is given is not null. It
+	 *        returns any status rather than throwing for errors.
+	 * @return the cached or fetched response
+	 */
+	public ResponseEntity<byte[]> get(String route, AuthenticatedUser user, Function<String, ResponseEntity<byte[]>> fetch) {
+		long now = System.currentTimeMillis();
+		Key key = new Key(route, user.getUsername(), user.getAuthorities());
+		Response cached = responses.get(key, now);
+		if (cached != null && cached.freshUntil > now) {
+			fresh.increment();
+			return cached.entity;
+		}
+
+		CompletableFuture<Response> mine = new CompletableFuture<>();
+		CompletableFuture<Response> running = inFlight.putIfAbsent(key, mine);
+		if (running != null) {
+			coalesced.increment();
+			return await(running).entity;
+		}
+		try {
+			Response response = fetch(key, cached, user, fetch, now);
+			mine.complete(response);
+			return response.entity;
+		} catch (RuntimeException | Error e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	private Response fetch(Key key, Response cached, AuthenticatedUser user, Function<String, ResponseEntity<byte[]>> fetch,
+			long now) {
+		ResponseEntity<byte[]> entity = fetch.apply(cached == null ? null : cached.etag);
+		long expiresAt = user.getExpiration() == null ? now + ttl : user.getExpiration().getTime();
+		long freshUntil = Math.min(now + ttl, expiresAt);
+
+		Response response;
+		if (entity.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+			revalidated.increment();
+			response = new Response(cached.entity, cached.etag, freshUntil);
+		} else {
+			fetched.increment();
+			response = new Response(entity, entity.getHeaders().getETag(), freshUntil);
+			if (entity.getStatusCode() != HttpStatus.OK) {
+				return response;
+			}
+		}
+		// without an etag there is nothing to revalidate once it is stale
+		responses.put(key, response, response.etag == null ? freshUntil : expiresAt);
+		return response;
+	}
+
+	private static Response await(CompletableFuture<Response> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	public int size() {
+		return responses == null ? 0 : responses.size();
+	}
+
+	public long getEvictionCount() {
+		return responses == null ? 0 : responses.getEvictionCount();
+	}
+
+	/**
+	 * Requests served without calling the downstream service
+	 */
+	public long getFreshCount() {
+		return fresh.sum();
+	}
+
+	/**
+	 * Requests answered with <code>304</code> by the downstream service
+	 */
+	public long getRevalidatedCount() {
+		return revalidated.sum();
+	}
+
+	/**
+	 * Requests which got a full response from the downstream service
+	 */
+	public long getFetchedCount() {
+		return fetched.sum();
+	}
+
+	/**
+	 * Requests which waited for an identical request to call the downstream service
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(long ttl) {
+		this.ttl = ttl;
+	}
+
+	private static final class Key {
+		final String route;
+		final String subject;
+		final Collection<? extends GrantedAuthority> authorities;
+		final int hash;
+
+		Key(String route, String subject, Collection<? extends GrantedAuthority> authorities) {
+			this.route = route;
+			this.subject = subject;
+			this.authorities = authorities;
+			this.hash = Objects.hash(route, subject, authorities);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && route.equals(other.route) && subject.equals(other.subject)
+					&& (authorities == other.authorities || authorities.equals(other.authorities));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static final class Response {
+		final ResponseEntity<byte[]> entity;
+		final String etag;
+		final long freshUntil;
+
+		Response(ResponseEntity<byte[]> entity, String etag, long freshUntil) {
+			this.entity = entity;
+			this.etag = etag;
+			this.freshUntil = freshUntil;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.gateway;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Exposes the {@link ResponseCache} in <code>/metrics</code> as <code>gateway.responseCache.*</code>
+ *
+ */
+class ResponseCacheMetrics implements PublicMetrics {
+
+	private final ResponseCache cache;
+
+	ResponseCacheMetrics(ResponseCache cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		if (cache.isEnabled()) {
+			String prefix = "gateway.responseCache.";
+			metrics.add(new Metric<>(prefix + "size", cache.size()));
+			metrics.add(new Metric<>(prefix + "fresh", cache.getFreshCount()));
+			metrics.add(new Metric<>(prefix + "revalidated", cache.getRevalidatedCount()));
+			metrics.add(new Metric<>(prefix + "fetched", cache.getFetchedCount()));
+			metrics.add(new Metric<>(prefix + "coalesced", cache.getCoalescedCount()));
+			metrics.add(new Metric<>(prefix + "evictions", cache.getEvictionCount()));
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,89 @@
+package com.gateway;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs every request on its own virtual thread (Java 21+) instead of Tomcat's thread pool. Requests waiting on
+ * <code>resource-service</code> or <code>backend-service</code> no longer hold one of the <code>maxThreads</code>
+ * platform threads, hence the number of concurrent requests is only capped by <code>gateway.maxConnections</code>.
+ *
+ * The whole request, including the RestTemplate calls, runs on the same virtual thread, so the SecurityContext
+ * (a thread local) is where {@link com.jwtdemo.security.AuthorizationHeaderPropagator} expects it.
+ *
+ * On older JVMs we log a warning and keep Tomcat's thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway", name = "virtualThreads", havingValue = "true")
+class VirtualThreadsConfiguration {
+
+	private static final Log logger = LogFactory.getLog(VirtualThreadsConfiguration.class);
+
+	@Value("${gateway.maxConnections:10000}")
+	int maxConnections;
+
+	@Bean
+	public EmbeddedServletContainerCustomizer virtualThreadsCustomizer() {
+		return container -> {
+			if (!(container instanceof TomcatEmbeddedServletContainerFactory)) {
+				return;
+			}
+			ThreadFactory threadFactory = virtualThreadFactory("gateway-vt-");
+			if (threadFactory == null) {
+				logger.warn("Virtual threads require Java 21 or later, requests run on Tomcat's thread pool");
+				return;
+			}
+			Executor executor = task -> threadFactory.newThread(task).start();
+			((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(connector -> {
+				AbstractProtocol<?> protocol = (AbstractProtocol<?>) connector.getProtocolHandler();
+				protocol.setExecutor(executor);
+				protocol.setMaxConnections(maxConnections);
+			});
+			logger.info("Requests run on virtual threads, up to " + maxConnections + " concurrent connections");
+		};
+	}
+
+	/**
+	 * @return <code>Executors.newThreadPerTaskExecutor(virtualThreadFactory(prefix))</code> or null if the JVM has
+	 *         no virtual threads
+	 */
+	static ExecutorService virtualThreadExecutor(String prefix) {
+		ThreadFactory threadFactory = virtualThreadFactory(prefix);
+		if (threadFactory == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+					.invoke(null, threadFactory);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return <code>Thread.ofVirtual().name(prefix, 0).factory()</code> or null if the JVM has no virtual threads.
+	 *         We go through reflection because we compile for Java 8.
+	 */
+	static ThreadFactory virtualThreadFactory(String prefix) {
+		try {
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.client.RestTemplate;
+
+import com.jwtdemo.security.AuthenticatedUser;
+import com.sun.net.httpserver.HttpServer;
+
+public class ProxyHandlerTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private HttpServer downstream;
+	private HttpClientPool pool;
+	private ResponseCache responseCache;
+
+	@Before
+	public void start() throws Exception {
+		downstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		downstream.createContext("/image", exchange -> {
+			calls.incrementAndGet();
+			byte[] png = { (byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xff };
+			exchange.getResponseHeaders().add("Content-Type", "image/png");
+			exchange.getResponseHeaders().add("Content-Disposition", "inline; filename=\"a.png\"");
+			exchange.getResponseHeaders().add("Set-Cookie", "session=bob");
+			exchange.sendResponseHeaders(200, png.length);
+			exchange.getResponseBody().write(png);
+			exchange.close();
+		});
+		downstream.createContext("/forbidden", exchange -> {
+			calls.incrementAndGet();
+			byte[] body = "{\"error\":\"Forbidden\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(403, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		downstream.createContext("/echo", exchange -> {
+			byte[] body = exchange.getRequestURI().toString().getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		downstream.start();
+
+		pool = new HttpClientPool("test");
+		pool.afterPropertiesSet();
+		responseCache = new ResponseCache();
+		responseCache.setMaxSize(10);
+		responseCache.afterPropertiesSet();
+
+		AuthenticatedUser user = new AuthenticatedUser("bob", "token",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+	}
+
+	@After
+	public void stop() throws Exception {
+		SecurityContextHolder.clearContext();
+		pool.destroy();
+		downstream.stop(0);
+	}
+
+	@Test
+	public void cachedResponsesKeepTheirStatusBodyAndContentHeaders() throws Exception {
+		ProxyHandler handler = handler(true);
+
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletResponse response = get(handler, "/resource/image");
+
+			assertThat(response.getStatus()).isEqualTo(200);
+			assertThat(response.getContentType()).isEqualTo("image/png");
+			assertThat(response.getHeader("Content-Disposition")).isEqualTo("inline; filename=\"a.png\"");
+			assertThat(response.getHeader("Set-Cookie")).isNull();
+			assertThat(response.getContentAsByteArray()).containsExactly((byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xff);
+		}
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void cachedRoutesReturnErrorsAsTheyAreWithoutCachingThem() throws Exception {
+		ProxyHandler handler = handler(true);
+
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletResponse response = get(handler, "/resource/forbidden");
+
+			assertThat(response.getStatus()).isEqualTo(403);
+			assertThat(response.getContentType()).isEqualTo("application/json");
+			assertThat(response.getContentAsString()).isEqualTo("{\"error\":\"Forbidden\"}");
+		}
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(responseCache.size()).isZero();
+	}
+
+	@Test
+	public void streamedResponsesKeepAllTheirHeaders() throws Exception {
+		MockHttpServletResponse response = get(handler(false), "/resource/image");
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentType()).isEqualTo("image/png");
+		assertThat(response.getHeader("Set-Cookie")).isEqualTo("session=bob");
+		assertThat(response.getContentAsByteArray()).hasSize(6);
+	}
+
+	@Test
+	public void forwardsThePathTheContainerMapped() throws Exception {
+		// as Tomcat normalizes them
+		assertThat(get(handler(false), "/./resource/echo/x", "/resource/echo/x", null).getContentAsString())
+				.isEqualTo("/echo/x");
+		assertThat(get(handler(false), "/admin/..;/resource/echo/x", "/resource/echo/x", null).getContentAsString())
+				.isEqualTo("/echo/x");
+	}
+
+	@Test
+	public void encodesWhatTheContainerLetsThrough() throws Exception {
+		MockHttpServletResponse response = get(handler(false), "/resource/echo/a%20b", "/resource/echo/a b",
+				"q=a|b&r=%20&s=%");
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsString()).isEqualTo("/echo/a%20b?q=a%7Cb&r=%20&s=%25");
+	}
+
+	@Test
+	public void rejectsPathsOutsideTheRoute() throws Exception {
+		assertThat(get(handler(false), "/resourcex", "/resourcex", null).getStatus()).isEqualTo(400);
+	}
+
+	private ProxyHandler handler(boolean cache) {
+		ProxyProperties.Route route = new ProxyProperties.Route();
+		route.setPath("/resource");
+		route.setUrl("http://localhost:" + downstream.getAddress().getPort() + "/");
+		route.setCache(cache);
+		return new ProxyHandler("resource", route, pool, new RestTemplate(), responseCache, 1024);
+	}
+
+	private static MockHttpServletResponse get(ProxyHandler handler, String uri) throws Exception {
+		return get(handler, uri, uri, null);
+	}
+
+	/**
+	 * @param servletPath the path the container decoded and normalized from <code>uri</code>, the dispatcher servlet
+	 *        being mapped to <code>/</code>
+	 */
+	private static MockHttpServletResponse get(ProxyHandler handler, String uri, String servletPath, String query)
+			throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.setServletPath(servletPath);
+		request.setQueryString(query);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		return response;
+	}
+}
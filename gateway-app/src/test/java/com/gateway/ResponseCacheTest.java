@@ -0,0 +1,162 @@
+package com.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.jwtdemo.security.AuthenticatedUser;
+
+public class ResponseCacheTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private final ExecutorService requests = Executors.newFixedThreadPool(2);
+
+	@After
+	public void stop() {
+		requests.shutdownNow();
+	}
+
+	@Test
+	public void servesAFreshResponseWithoutCallingTheDownstreamService() {
+		ResponseCache cache = cache(60000);
+		AuthenticatedUser bob = user("bob", null);
+
+		cache.get("resource /a", bob, etag -> ok("a", null));
+		ResponseEntity<byte[]> response = cache.get("resource /a", bob, etag -> ok("other", null));
+
+		assertThat(body(response)).isEqualTo("a");
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(cache.getFreshCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void keepsResponsesPerUser() {
+		ResponseCache cache = cache(60000);
+
+		cache.get("resource /a", user("bob", null), etag -> ok("bob's", null));
+		ResponseEntity<byte[]> response = cache.get("resource /a", user("alice", null), etag -> ok("alice's", null));
+
+		assertThat(body(response)).isEqualTo("alice's");
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void keepsNothingBeyondTheExpirationOfTheToken() throws Exception {
+		ResponseCache cache = cache(60000);
+		AuthenticatedUser bob = user("bob", new Date(System.currentTimeMillis() + 100));
+
+		cache.get("resource /a", bob, etag -> ok("a", "\"1\""));
+		Thread.sleep(200);
+		ResponseEntity<byte[]> response = cache.get("resource /a", bob, etag -> {
+			assertThat(etag).isNull();
+			return ok("b", "\"2\"");
+		});
+
+		assertThat(body(response)).isEqualTo("b");
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void revalidatesAStaleResponseWithItsEtag() throws Exception {
+		ResponseCache cache = cache(1);
+		AuthenticatedUser bob = user("bob", new Date(System.currentTimeMillis() + 60000));
+
+		cache.get("resource /a", bob, etag -> ok("a", "\"1\""));
+		Thread.sleep(10);
+		ResponseEntity<byte[]> response = cache.get("resource /a", bob, etag -> {
+			assertThat(etag).isEqualTo("\"1\"");
+			calls.incrementAndGet();
+			return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+		});
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(body(response)).isEqualTo("a");
+		assertThat(cache.getRevalidatedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void doesNotCacheErrors() {
+		ResponseCache cache = cache(60000);
+		AuthenticatedUser bob = user("bob", null);
+
+		for (int i = 0; i < 2; i++) {
+			ResponseEntity<byte[]> response = cache.get("resource /a", bob, etag -> {
+				calls.incrementAndGet();
+				return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+			});
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		}
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void concurrentMissesShareOneFetch() throws Exception {
+		ResponseCache cache = cache(60000);
+		AuthenticatedUser bob = user("bob", null);
+		CountDownLatch fetching = new CountDownLatch(1);
+		CountDownLatch downstreamBlocked = new CountDownLatch(1);
+
+		Future<ResponseEntity<byte[]>> first = requests.submit(() -> cache.get("resource /a", bob, etag -> {
+			fetching.countDown();
+			try {
+				downstreamBlocked.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return ok("a", null);
+		}));
+		assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+		Future<ResponseEntity<byte[]>> second = requests.submit(() -> cache.get("resource /a", bob, etag -> ok("b", null)));
+		while (cache.getCoalescedCount() == 0) {
+			Thread.sleep(1);
+		}
+		downstreamBlocked.countDown();
+
+		assertThat(body(first.get(5, TimeUnit.SECONDS))).isEqualTo("a");
+		assertThat(body(second.get(5, TimeUnit.SECONDS))).isEqualTo("a");
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(cache.getFetchedCount()).isEqualTo(1);
+	}
+
+	private static ResponseCache cache(long ttl) {
+		ResponseCache cache = new ResponseCache();
+		cache.setMaxSize(10);
+		cache.setTtl(ttl);
+		cache.afterPropertiesSet();
+		return cache;
+	}
+
+	private ResponseEntity<byte[]> ok(String body, String etag) {
+		calls.incrementAndGet();
+		HttpHeaders headers = new HttpHeaders();
+		if (etag != null) {
+			headers.setETag(etag);
+		}
+		return new ResponseEntity<>(body.getBytes(StandardCharsets.UTF_8), headers, HttpStatus.OK);
+	}
+
+	private static AuthenticatedUser user(String username, Date expiration) {
+		return new AuthenticatedUser(username, "token", Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")),
+				expiration, Collections.emptyMap());
+	}
+
+	private static String body(ResponseEntity<byte[]> response) {
+		return new String(response.getBody(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# The gateway signs the tokens it sends to backend-service and resource-service (jwt.serviceToken and
+# jwt.tokenExchange) with its own key pair, never with the token service's private key. The pair is generated
+# locally and is not committed: the gateway gets the private key from the environment, the services the public key.
+
+set -eu
+
+if [ ! -f gateway-private.key ]; then
+  echo "Generating the gateway's key pair in gateway-private.key and gateway-public.key ..."
+  openssl genpkey -algorithm RSA -pkeyopt rsa_keygen_bits:2048 -out gateway-private.key 2>/dev/null
+  chmod 600 gateway-private.key
+  openssl pkey -in gateway-private.key -pubout -out gateway-public.key
+fi
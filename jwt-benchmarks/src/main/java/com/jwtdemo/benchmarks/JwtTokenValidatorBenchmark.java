@@ -0,0 +1,106 @@
+package com.jwtdemo.benchmarks;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.AuthenticationException;
+
+import com.jwtdemo.security.AuthorityRegistry;
+import com.jwtdemo.security.JwtTokenValidator;
+import com.jwtdemo.security.TokenPreCheck;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * <code>JwtTokenValidator.parseToken</code> as configured by default (pre-checks and interned authorities, no cache
+ * of validated tokens) on valid tokens and on the invalid tokens we reject most often.
+ *
+ * <code>validPerRequestParser</code> is the baseline of the shared parser: it builds and configures a new jjwt parser
+ * for every token, as <code>JwtTokenValidator</code> used to, and only parses the token. Any gap with
+ * <code>valid</code> is therefore a lower bound of what the shared parser saves.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenValidatorBenchmark {
+
+	@Param({ "HS256", "RS256" })
+	public String algorithm;
+
+	@Param({ "small", "large" })
+	public String claims;
+
+	private JwtTokenValidator validator;
+	private Key verificationKey;
+	private String valid;
+	private String badSignature;
+	private String expired;
+
+	@Setup
+	public void setup() throws Exception {
+		Tokens tokens = new Tokens(SignatureAlgorithm.forName(algorithm));
+		verificationKey = tokens.verificationKey;
+		validator = new JwtTokenValidator(verificationKey, Tokens.AUDIENCE, "roles");
+		validator.setAuthorityRegistry(new AuthorityRegistry(1024));
+		validator.setPreCheck(new TokenPreCheck(8192, TokenPreCheck.algorithmsFor(tokens.verificationKey, null)));
+
+		valid = tokens.sign(Tokens.claims(claims, System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+		badSignature = Tokens.tamper(valid);
+		expired = tokens.sign(Tokens.claims(claims, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+		validator.parseToken(valid);
+	}
+
+	@Benchmark
+	public Object valid() {
+		return validator.parseToken(valid);
+	}
+
+	@Benchmark
+	public Object validPerRequestParser() {
+		return Jwts.parser().setSigningKey(verificationKey).requireAudience(Tokens.AUDIENCE).parseClaimsJws(valid)
+				.getBody();
+	}
+
+	@Benchmark
+	public Object badSignature() {
+		return reject(badSignature);
+	}
+
+	@Benchmark
+	public Object expired() {
+		return reject(expired);
+	}
+
+	/**
+	 * Rejected by the pre-checks, before any JSON parsing or signature verification
+	 */
+	@Benchmark
+	public Object malformed() {
+		return reject("not-a-token");
+	}
+
+	private Object reject(String token) {
+		try {
+			validator.parseToken(token);
+		} catch (AuthenticationException e) {
+			return e;
+		}
+		throw new IllegalStateException("Token should have been rejected");
+	}
+}
@@ -0,0 +1,103 @@
+package com.jwtdemo.benchmarks;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jwtdemo.security.AuthenticatedUser;
+import com.jwtdemo.security.JwtTokenValidator;
+import com.jwtdemo.security.ServiceTokenSigner;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Signing (as the <code>ServiceTokenSigner</code> does) and verifying (as the <code>JwtTokenValidator</code> does)
+ * the same claims with HS256, RS256 (2048 bit key) and ES256 (P-256 key). The size of each token is reported as a
+ * secondary result, see {@link TokenSize}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureAlgorithmBenchmark {
+
+	@Param({ "HS256", "RS256", "ES256" })
+	public String algorithm;
+
+	private ServiceTokenSigner signer;
+	private JwtTokenValidator validator;
+	private String token;
+
+	@Setup
+	public void setup() throws Exception {
+		SignatureAlgorithm alg = SignatureAlgorithm.forName(algorithm);
+		Key signingKey;
+		Key verificationKey;
+		if (alg.isHmac()) {
+			signingKey = verificationKey = new SecretKeySpec("trdFmDVIKGhC8wR7be36Jyve3lqQRLTI".getBytes("UTF-8"),
+					alg.getJcaName());
+		} else {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance(alg.getFamilyName().equals("RSA") ? "RSA" : "EC");
+			if (alg.isEllipticCurve()) {
+				generator.initialize(new ECGenParameterSpec("secp256r1"));
+			} else {
+				generator.initialize(2048);
+			}
+			KeyPair keyPair = generator.generateKeyPair();
+			signingKey = keyPair.getPrivate();
+			verificationKey = keyPair.getPublic();
+		}
+		signer = new ServiceTokenSigner(signingKey, alg, "bob", "gateway", TimeUnit.HOURS.toMillis(1));
+		signer.setRoles("roles", "ROLE_USER,ROLE_ADMIN");
+		validator = new JwtTokenValidator(verificationKey, "gateway", "roles");
+		token = signer.call();
+	}
+
+	@Benchmark
+	public String sign(TokenSize size) {
+		return signer.call();
+	}
+
+	@Benchmark
+	public AuthenticatedUser verify(TokenSize size) {
+		return validator.parseToken(token);
+	}
+
+	/**
+	 * Reported next to the scores as <code>tokenBytes</code> and <code>signatureBytes</code>
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class TokenSize {
+
+		public int tokenBytes;
+		public int signatureBytes;
+
+		@Setup(Level.Iteration)
+		public void measure(SignatureAlgorithmBenchmark benchmark) {
+			tokenBytes = benchmark.token.length();
+			signatureBytes = tokenBytes - benchmark.token.lastIndexOf('.') - 1;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.jwtdemo.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Keys, claims and tokens shared by the benchmarks.
+ *
+ */
+public final class Tokens {
+
+	public static final String AUDIENCE = "gateway";
+	public static final String SYMMETRICAL_KEY = "trdFmDVIKGhC8wR7be36Jyve3lqQRLTI";
+
+	public final Key signingKey;
+	public final Key verificationKey;
+	private final SignatureAlgorithm algorithm;
+
+	/**
+	 * With the symmetrical key of the demo, a 2048 bit RSA key pair or a P-256 key pair
+	 */
+	public Tokens(SignatureAlgorithm algorithm) throws GeneralSecurityException {
+		this.algorithm = algorithm;
+		if (algorithm.isHmac()) {
+			signingKey = verificationKey = new SecretKeySpec(SYMMETRICAL_KEY.getBytes(StandardCharsets.UTF_8),
+					algorithm.getJcaName());
+			return;
+		}
+		KeyPairGenerator generator;
+		if (algorithm.isEllipticCurve()) {
+			generator = KeyPairGenerator.getInstance("EC");
+			generator.initialize(new ECGenParameterSpec("secp256r1"));
+		} else {
+			generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+		}
+		KeyPair keyPair = generator.generateKeyPair();
+		signingKey = keyPair.getPrivate();
+		verificationKey = keyPair.getPublic();
+	}
+
+	public String sign(Map<String, Object> claims) {
+		return Jwts.builder().setClaims(claims).signWith(algorithm, signingKey).compact();
+	}
+
+	/**
+	 * <code>small</code>: the registered claims and 2 roles. <code>large</code>: 40 roles and a 2 KB profile we never
+	 * look at, as found in tokens of enterprise identity providers.
+	 */
+	public static Map<String, Object> claims(String size, long expiresAt) {
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("iss", "https://uaa.example.com/oauth/token");
+		claims.put("sub", "bob");
+		claims.put("aud", AUDIENCE);
+		claims.put("iat", TimeUnit.MILLISECONDS.toSeconds(expiresAt) - 3600);
+		claims.put("exp", TimeUnit.MILLISECONDS.toSeconds(expiresAt));
+		if ("small".equals(size)) {
+			claims.put("roles", "ADMIN,resource.read");
+			return claims;
+		}
+		claims.put("roles", String.join(",", roles(40)));
+		Map<String, Object> profile = new LinkedHashMap<>();
+		for (int i = 0; i < 40; i++) {
+			profile.put("attribute" + i, "value of the profile attribute number " + i);
+		}
+		claims.put("profile", profile);
+		return claims;
+	}
+
+	public static List<String> roles(int count) {
+		String[] areas = { "billing", "catalog", "orders", "customers", "inventory" };
+		String[] actions = { "read", "write", "approve", "admin" };
+		List<String> roles = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			roles.add(areas[i % areas.length] + ".service" + i + "." + actions[i % actions.length]);
+		}
+		return roles;
+	}
+
+	/**
+	 * @return <code>token</code> with one character of its signature changed
+	 */
+	public static String tamper(String token) {
+		int i = token.lastIndexOf('.') + 5;
+		char c = token.charAt(i) == 'A' ? 'B' : 'A';
+		return token.substring(0, i) + c + token.substring(i + 1);
+	}
+}
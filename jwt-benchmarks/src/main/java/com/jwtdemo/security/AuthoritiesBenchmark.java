@@ -0,0 +1,75 @@
+package com.jwtdemo.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jwtdemo.benchmarks.Tokens;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * <code>JwtTokenValidator.buildAuthorities</code>, hence in this package: role names split on every call
+ * (<code>plain</code>), interned by {@link AuthorityRegistry} (<code>interned</code>, the default) and carried as
+ * {@link RoleDictionary} indexes (<code>dictionary</code>).
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthoritiesBenchmark {
+
+	@Param({ "1", "10", "40" })
+	public int roles;
+
+	@Param({ "plain", "interned", "dictionary" })
+	public String mode;
+
+	private JwtTokenValidator validator;
+	private Claims claims;
+
+	@Setup
+	public void setup() throws Exception {
+		validator = new JwtTokenValidator(new Tokens(SignatureAlgorithm.HS256).verificationKey, null, "roles");
+		List<String> names = Tokens.roles(roles);
+		Map<String, Object> map = new HashMap<>();
+		if ("dictionary".equals(mode)) {
+			validator.setRoleDictionary(new RoleDictionary(names));
+			List<Object> indexes = new ArrayList<>();
+			for (int i = 0; i < names.size(); i++) {
+				indexes.add(i);
+			}
+			map.put("roles", indexes);
+		} else {
+			map.put("roles", String.join(",", names));
+		}
+		if (!"plain".equals(mode)) {
+			validator.setAuthorityRegistry(new AuthorityRegistry(1024));
+		}
+		claims = new DefaultClaims(map);
+	}
+
+	@Benchmark
+	public Object buildAuthorities() {
+		return validator.buildAuthorities(claims);
+	}
+}
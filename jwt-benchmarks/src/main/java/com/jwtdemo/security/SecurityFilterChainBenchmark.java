@@ -0,0 +1,118 @@
+package com.jwtdemo.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.jwtdemo.benchmarks.Tokens;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * A request going through the whole Spring Security filter chain the starter configures, from the security context
+ * persistence to the authorization check, with either {@link JwtAuthenticationTokenFilter} or
+ * {@link LightweightJwtAuthenticationFilter}. Requests are mocks, there is no servlet container.
+ *
+ * The starter's configurations are imported explicitly, hence this package: the <code>spring.factories</code> of the
+ * jars do not survive being shaded into one.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+	private static final FilterChain APPLICATION = (request, response) -> ((HttpServletResponse) response).setStatus(200);
+
+	@Param({ "false", "true" })
+	public boolean lightweightFilter;
+
+	private AnnotationConfigApplicationContext context;
+	private Filter securityFilterChain;
+	private String token;
+	private String badSignature;
+
+	@Configuration
+	@EnableConfigurationProperties
+	@Import({ JWTConfiguration.class, AuthorityCheckConfiguration.class, SecurityConfiguration.class })
+	static class Application {
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("jwt.key", Tokens.SYMMETRICAL_KEY);
+		properties.put("jwt.requireAudience", Tokens.AUDIENCE);
+		properties.put("jwt.lightweightFilter", lightweightFilter);
+		context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+		context.register(Application.class);
+		context.refresh();
+		securityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+
+		Tokens tokens = new Tokens(SignatureAlgorithm.HS256);
+		token = tokens.sign(Tokens.claims("small", System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+		badSignature = Tokens.tamper(token);
+		if (authenticated() != 200 || unauthenticated() != 401 || badSignature() != 401) {
+			throw new IllegalStateException("The security filter chain does not behave as expected");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int authenticated() throws Exception {
+		return filter("Bearer " + token);
+	}
+
+	@Benchmark
+	public int unauthenticated() throws Exception {
+		return filter(null);
+	}
+
+	@Benchmark
+	public int badSignature() throws Exception {
+		return filter("Bearer " + badSignature);
+	}
+
+	private int filter(String authorization) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setServletPath("/");
+		if (authorization != null) {
+			request.addHeader("Authorization", authorization);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		securityFilterChain.doFilter(request, response, APPLICATION);
+		return response.getStatus();
+	}
+}
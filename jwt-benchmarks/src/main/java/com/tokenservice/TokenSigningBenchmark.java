@@ -0,0 +1,86 @@
+package com.tokenservice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwtdemo.benchmarks.Tokens;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * The sign path of <code>/token</code> and <code>/tokens</code>, {@link RawTokenSigner}, hence in this package: plain
+ * tokens, compressed tokens and tokens with dictionary-encoded roles. The size of the tokens is reported as a
+ * secondary result.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenSigningBenchmark {
+
+	@Param({ "HS256", "RS256", "ES256" })
+	public String algorithm;
+
+	@Param({ "small", "large" })
+	public String claims;
+
+	@Param({ "plain", "zip", "compactRoles" })
+	public String options;
+
+	private RawTokenSigner signer;
+	private String claimsJson;
+
+	@Setup
+	public void setup() throws Exception {
+		SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+		signer = new RawTokenSigner(signatureAlgorithm, new Tokens(signatureAlgorithm).signingKey, "benchmark",
+				"zip".equals(options));
+		if ("compactRoles".equals(options)) {
+			List<String> roles = new ArrayList<>(Arrays.asList("ADMIN", "resource.read"));
+			roles.addAll(Tokens.roles(40));
+			signer.setRoleDictionary(new RoleDictionary(roles, "roles"));
+		}
+		claimsJson = new ObjectMapper()
+				.writeValueAsString(Tokens.claims(claims, System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+	}
+
+	@Benchmark
+	public String sign(TokenSize size) throws Exception {
+		return signer.sign(claimsJson);
+	}
+
+	/**
+	 * Reported next to the score as <code>tokenBytes</code>
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class TokenSize {
+
+		public int tokenBytes;
+
+		@Setup(Level.Iteration)
+		public void measure(TokenSigningBenchmark benchmark) throws Exception {
+			tokenBytes = benchmark.signer.sign(benchmark.claimsJson).length();
+		}
+	}
+}
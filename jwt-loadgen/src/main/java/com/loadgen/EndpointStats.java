@@ -0,0 +1,73 @@
+package com.loadgen;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies (in microseconds) and outcomes of the requests to one endpoint, recorded from any number of threads
+ *
+ */
+class EndpointStats {
+
+	private final String path;
+	private final Recorder latencies = new Recorder(3);
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder ioErrors = new LongAdder();
+	private final ConcurrentMap<Integer, LongAdder> failures = new ConcurrentHashMap<>();
+
+	EndpointStats(String path) {
+		this.path = path;
+	}
+
+	String getPath() {
+		return path;
+	}
+
+	/**
+	 * @param status the HTTP status of the response, 0 when there was none
+	 */
+	void record(long latencyNanos, int status) {
+		latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+		if (status >= 200 && status < 300) {
+			successes.increment();
+		} else if (status == 0) {
+			ioErrors.increment();
+		} else {
+			failures.computeIfAbsent(status, s -> new LongAdder()).increment();
+		}
+	}
+
+	/**
+	 * @return the latencies recorded since the last call, all of them the first time
+	 */
+	Histogram takeLatencies() {
+		return latencies.getIntervalHistogram();
+	}
+
+	long getSuccesses() {
+		return successes.sum();
+	}
+
+	long getErrors() {
+		return ioErrors.sum() + failures.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * @return the number of requests per status other than 2xx, <code>I/O</code> for those without a response
+	 */
+	Map<String, Long> getErrorsByStatus() {
+		Map<String, Long> errors = new TreeMap<>();
+		failures.forEach((status, count) -> errors.put(String.valueOf(status), count.sum()));
+		if (ioErrors.sum() > 0) {
+			errors.put("I/O", ioErrors.sum());
+		}
+		return errors;
+	}
+}
@@ -0,0 +1,111 @@
+package com.loadgen;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Sends GET requests to the gateway, each to a random endpoint with the token of a random user, in one of two ways:
+ * <ul>
+ * <li>closed model: <code>concurrency</code> users send their next request as soon as they get a response, the load
+ * goes down when the services slow down</li>
+ * <li>open model: requests are due at a fixed <code>rate</code> whatever the response times, as when many independent
+ * clients call us. The latency of a request runs from the time it was due, so that requests waiting for one of the
+ * <code>maxInFlight</code> senders count the wait rather than hiding it (coordinated omission)</li>
+ * </ul>
+ * Requests due during the warmup are sent but not recorded.
+ *
+ */
+class LoadDriver {
+
+	private final LoadGeneratorProperties properties;
+	private final CloseableHttpClient httpClient;
+	private final List<String> tokens;
+	private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+	private final EndpointStats[] picks;
+
+	LoadDriver(LoadGeneratorProperties properties, CloseableHttpClient httpClient, List<String> tokens) {
+		this.properties = properties;
+		this.httpClient = httpClient;
+		this.tokens = tokens;
+		this.picks = new EndpointStats[properties.getEndpoints().size()];
+		for (int i = 0; i < picks.length; i++) {
+			picks[i] = stats.computeIfAbsent(properties.getEndpoints().get(i).trim(), EndpointStats::new);
+		}
+	}
+
+	/**
+	 * @return the statistics of each endpoint over the measured <code>duration</code>
+	 */
+	Collection<EndpointStats> run() throws InterruptedException {
+		long start = System.nanoTime();
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(properties.getWarmup());
+		long end = measureFrom + TimeUnit.SECONDS.toNanos(properties.getDuration());
+		ExecutorService senders;
+		if (properties.isOpenModel()) {
+			senders = senders(properties.getMaxInFlight());
+			double interval = TimeUnit.SECONDS.toNanos(1) / (double) properties.getRate();
+			for (long i = 0;; i++) {
+				long due = start + (long) (i * interval);
+				if (due >= end) {
+					break;
+				}
+				long wait = due - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				senders.execute(() -> send(due, measureFrom));
+			}
+		} else {
+			senders = senders(properties.getConcurrency());
+			for (int i = 0; i < properties.getConcurrency(); i++) {
+				senders.execute(() -> {
+					for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+						send(now, measureFrom);
+					}
+				});
+			}
+		}
+		senders.shutdown();
+		// in the open model, requests due before the end may still be waiting for a sender
+		senders.awaitTermination(1, TimeUnit.HOURS);
+		return stats.values();
+	}
+
+	private void send(long due, long measureFrom) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		EndpointStats endpoint = picks[random.nextInt(picks.length)];
+		HttpGet request = new HttpGet(properties.getGatewayUrl() + endpoint.getPath());
+		request.setHeader("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())));
+		int status = 0;
+		try (CloseableHttpResponse response = httpClient.execute(request)) {
+			status = response.getStatusLine().getStatusCode();
+			EntityUtils.consume(response.getEntity());
+		} catch (IOException e) {
+			// recorded as an I/O error
+		}
+		long latency = System.nanoTime() - due;
+		if (due >= measureFrom) {
+			endpoint.record(latency, status);
+		}
+	}
+
+	private static ExecutorService senders(int threads) {
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				new CustomizableThreadFactory("loadgen-"));
+	}
+}
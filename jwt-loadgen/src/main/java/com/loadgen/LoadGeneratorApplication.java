@@ -0,0 +1,93 @@
+package com.loadgen;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+/**
+ * Mints the tokens of <code>loadgen.tokens.users</code> users, drives the gateway with them for
+ * <code>loadgen.warmup</code> + <code>loadgen.duration</code> seconds and prints the throughput and latency
+ * percentiles of each endpoint. See <code>application.yml</code> for the settings.
+ *
+ */
+@SpringBootApplication
+@EnableConfigurationProperties(LoadGeneratorProperties.class)
+public class LoadGeneratorApplication implements CommandLineRunner {
+
+	@Autowired
+	LoadGeneratorProperties properties;
+
+	public static void main(String[] args) {
+		SpringApplication.run(LoadGeneratorApplication.class, args);
+	}
+
+	@Override
+	public void run(String... args) throws Exception {
+		try (CloseableHttpClient httpClient = httpClient()) {
+			List<String> tokens = new TokenPopulation(properties.getTokens()).mint(httpClient);
+			System.out.printf("%d tokens (%s), %s, warmup %ds, measuring %ds%n", tokens.size(),
+					properties.getTokens().getSource(),
+					properties.isOpenModel() ? properties.getRate() + " requests/s (open model)"
+							: properties.getConcurrency() + " concurrent requests (closed model)",
+					properties.getWarmup(), properties.getDuration());
+			report(new LoadDriver(properties, httpClient, tokens).run());
+		}
+	}
+
+	private CloseableHttpClient httpClient() {
+		int connections = properties.isOpenModel() ? properties.getMaxInFlight() : properties.getConcurrency();
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(connections);
+		connectionManager.setDefaultMaxPerRoute(connections);
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(properties.getConnectTimeout())
+						.setSocketTimeout(properties.getReadTimeout())
+						.build())
+				.disableCookieManagement()
+				// a failed request is a result, not something to hide
+				.disableAutomaticRetries()
+				.build();
+	}
+
+	private void report(Collection<EndpointStats> endpoints) {
+		double seconds = properties.getDuration();
+		System.out.printf("%n%-12s %10s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+				"p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		Histogram all = new Histogram(3);
+		long allErrors = 0;
+		for (EndpointStats endpoint : endpoints) {
+			Histogram latencies = endpoint.takeLatencies();
+			all.add(latencies);
+			allErrors += endpoint.getErrors();
+			print(endpoint.getPath(), latencies, endpoint.getErrors(), seconds);
+		}
+		print("all", all, allErrors, seconds);
+		for (EndpointStats endpoint : endpoints) {
+			if (endpoint.getErrors() > 0) {
+				System.out.printf("%s errors by status: %s%n", endpoint.getPath(), endpoint.getErrorsByStatus());
+			}
+		}
+	}
+
+	private static void print(String name, Histogram latencies, long errors, double seconds) {
+		System.out.printf("%-12s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.getTotalCount(), errors,
+				latencies.getTotalCount() / seconds, millis(latencies, 50), millis(latencies, 99),
+				millis(latencies, 99.9), latencies.getMaxValue() / 1000.0);
+	}
+
+	private static double millis(Histogram latencies, double percentile) {
+		return latencies.getValueAtPercentile(percentile) / 1000.0;
+	}
+}
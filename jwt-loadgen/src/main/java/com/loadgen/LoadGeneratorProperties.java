@@ -0,0 +1,224 @@
+package com.loadgen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "loadgen")
+public class LoadGeneratorProperties {
+
+	private String gatewayUrl = "http://localhost:8080";
+
+	/**
+	 * Paths of the gateway, each request goes to one of them picked at random
+	 */
+	private List<String> endpoints = new ArrayList<>(Arrays.asList("/", "/admin", "/resource", "/backend"));
+
+	/**
+	 * Closed model: number of requests in flight
+	 */
+	private int concurrency = 16;
+
+	/**
+	 * Open model: requests per second, sent on schedule whatever the response times. 0 uses the closed model
+	 */
+	private int rate;
+
+	/**
+	 * Open model: requests sent in parallel, the others wait for their turn
+	 */
+	private int maxInFlight = 256;
+
+	/**
+	 * Seconds
+	 */
+	private int warmup = 10;
+
+	/**
+	 * Seconds
+	 */
+	private int duration = 30;
+
+	/**
+	 * Milliseconds
+	 */
+	private int connectTimeout = 2000;
+
+	/**
+	 * Milliseconds
+	 */
+	private int readTimeout = 10000;
+
+	private Tokens tokens = new Tokens();
+
+	public boolean isOpenModel() {
+		return rate > 0;
+	}
+
+	public String getGatewayUrl() {
+		return gatewayUrl;
+	}
+
+	public void setGatewayUrl(String gatewayUrl) {
+		this.gatewayUrl = gatewayUrl;
+	}
+
+	public List<String> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(List<String> endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getRate() {
+		return rate;
+	}
+
+	public void setRate(int rate) {
+		this.rate = rate;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public int getWarmup() {
+		return warmup;
+	}
+
+	public void setWarmup(int warmup) {
+		this.warmup = warmup;
+	}
+
+	public int getDuration() {
+		return duration;
+	}
+
+	public void setDuration(int duration) {
+		this.duration = duration;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public Tokens getTokens() {
+		return tokens;
+	}
+
+	public void setTokens(Tokens tokens) {
+		this.tokens = tokens;
+	}
+
+	public static class Tokens {
+
+		/**
+		 * One token per user
+		 */
+		private int users = 100;
+
+		private String roles = "ADMIN,resource.read";
+
+		private String audience = "gateway";
+
+		/**
+		 * Seconds
+		 */
+		private int ttl = 3600;
+
+		/**
+		 * <code>local</code> signs the tokens with {@link #key}, <code>token-service</code> asks jwt-token-service
+		 */
+		private String source = "local";
+
+		/**
+		 * File with the symmetrical key or a PEM private key
+		 */
+		private String key = "../symmetrical.key";
+
+		private String tokenServiceUrl = "http://localhost:8081";
+
+		public int getUsers() {
+			return users;
+		}
+
+		public void setUsers(int users) {
+			this.users = users;
+		}
+
+		public String getRoles() {
+			return roles;
+		}
+
+		public void setRoles(String roles) {
+			this.roles = roles;
+		}
+
+		public String getAudience() {
+			return audience;
+		}
+
+		public void setAudience(String audience) {
+			this.audience = audience;
+		}
+
+		public int getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(int ttl) {
+			this.ttl = ttl;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		public void setSource(String source) {
+			this.source = source;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public String getTokenServiceUrl() {
+			return tokenServiceUrl;
+		}
+
+		public void setTokenServiceUrl(String tokenServiceUrl) {
+			this.tokenServiceUrl = tokenServiceUrl;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.jwtdemo.security;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <code>WebClient</code> equivalent of {@link AuthorizationHeaderInjector}: sends the application's own token, e.g.
+ * the one a {@link ServiceTokenManager} keeps fresh.
+ *
+ * The supplier is asked for the token when the exchange is subscribed to, not when it is assembled, so a request
+ * made with a <code>WebClient</code> built long ago still gets the current token. {@link ServiceTokenManager} only
+ * blocks until it has its first token.
+ *
+ */
+public class ReactiveAuthorizationHeaderInjector implements ExchangeFilterFunction {
+
+	private final Supplier<String> tokenSupplier;
+
+	public ReactiveAuthorizationHeaderInjector(String token) {
+		this(() -> token);
+	}
+
+	/**
+	 * @param tokenSupplier asked for the token on every exchange, e.g. a {@link ServiceTokenManager}
+	 */
+	public ReactiveAuthorizationHeaderInjector(Supplier<String> tokenSupplier) {
+		this.tokenSupplier = tokenSupplier;
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return Mono.fromSupplier(tokenSupplier)
+				.map(token -> ClientRequest.from(request).header(HttpHeaders.AUTHORIZATION, "Bearer " + token).build())
+				.flatMap(next::exchange);
+	}
+}
@@ -0,0 +1,32 @@
+package com.jwtdemo.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <code>WebClient</code> equivalent of {@link AuthorizationHeaderPropagator}: forwards the token of the user found in
+ * the reactive security context. Requests made outside of an authenticated exchange are left untouched.
+ *
+ */
+public class ReactiveAuthorizationHeaderPropagator implements ExchangeFilterFunction {
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		return ReactiveSecurityContextHolder.getContext()
+				.flatMap(context -> Mono.justOrEmpty(context.getAuthentication()))
+				.map(Authentication::getPrincipal)
+				.ofType(AuthenticatedUser.class)
+				.map(user -> ClientRequest.from(request)
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + user.getToken())
+						.build())
+				.defaultIfEmpty(request)
+				.flatMap(next::exchange);
+	}
+}
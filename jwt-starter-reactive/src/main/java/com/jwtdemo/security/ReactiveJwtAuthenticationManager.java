@@ -0,0 +1,30 @@
+package com.jwtdemo.security;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationProvider}: validates the token carried by a
+ * {@link JwtAuthenticationToken} and returns an {@link AuthenticatedUserToken}. Validation is pure CPU work (no I/O)
+ * hence it runs on the calling thread.
+ *
+ */
+public class ReactiveJwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+	private final JwtTokenValidator jwtTokenValidator;
+
+	public ReactiveJwtAuthenticationManager(JwtTokenValidator jwtTokenValidator) {
+		this.jwtTokenValidator = jwtTokenValidator;
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		if (!(authentication instanceof JwtAuthenticationToken)) {
+			return Mono.empty();
+		}
+		return Mono.fromCallable(() -> new AuthenticatedUserToken(
+				jwtTokenValidator.parseToken(((JwtAuthenticationToken) authentication).getToken())));
+	}
+}
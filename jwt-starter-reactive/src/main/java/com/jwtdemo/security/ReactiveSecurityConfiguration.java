@@ -0,0 +1,79 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Reactive security configuration, same semantics as the servlet one: every request must carry a valid token, else
+ * it gets a 401. Use method annotation @PreAuthorize to declare the required role to execute the method.
+ *
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.web.reactive.DispatcherHandler")
+@AutoConfigureBefore({ ReactiveSecurityAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class })
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+class ReactiveSecurityConfiguration {
+
+	@Autowired
+	JWTConfiguration jwtConfiguration;
+
+	ServerAuthenticationEntryPoint handleUnauthenticatedUsers() {
+		return new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED);
+	}
+
+	@Bean
+	public AuthorityRegistry authorityRegistry() {
+		return new AuthorityRegistry(jwtConfiguration.getMaxInternedRoles());
+	}
+
+	@Bean
+	public JwtTokenValidator jwtTokenValidator() throws IOException, GeneralSecurityException {
+		return JwtTokenValidators.create(jwtConfiguration, authorityRegistry());
+	}
+
+	@Bean
+	public ReactiveJwtAuthenticationManager reactiveJwtAuthenticationManager() throws IOException, GeneralSecurityException {
+		return new ReactiveJwtAuthenticationManager(jwtTokenValidator());
+	}
+
+	@Bean
+	public SecurityWebFilterChain jwtSecurityWebFilterChain(ServerHttpSecurity http) throws Exception {
+		AuthenticationWebFilter authenticationFilter = new AuthenticationWebFilter(reactiveJwtAuthenticationManager());
+		authenticationFilter.setServerAuthenticationConverter(new ServerBearerTokenConverter(jwtConfiguration.getTokenHeader()));
+		authenticationFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(handleUnauthenticatedUsers()));
+		authenticationFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+		return http
+				// REST-api doesn't need CSRF
+				.csrf().disable()
+				.httpBasic().disable()
+				.formLogin().disable()
+				.logout().disable()
+				// stateless
+				.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+				.exceptionHandling().authenticationEntryPoint(handleUnauthenticatedUsers())
+				.and().authorizeExchange().anyExchange().authenticated()
+				.and().addFilterAt(authenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+				.build();
+	}
+}
@@ -0,0 +1,33 @@
+package com.jwtdemo.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Extracts the token from the <b>Authorization</b> header with the value <b>Bearer TOKEN</b>. Requests without it are
+ * left unauthenticated.
+ *
+ */
+public class ServerBearerTokenConverter implements ServerAuthenticationConverter {
+
+	private static final String BEARER = JwtAuthenticationTokenFilter.BEARER;
+
+	private final String tokenHeader;
+
+	public ServerBearerTokenConverter(String tokenHeader) {
+		this.tokenHeader = tokenHeader;
+	}
+
+	@Override
+	public Mono<Authentication> convert(ServerWebExchange exchange) {
+		// Assumes it has only one token header instance
+		String header = exchange.getRequest().getHeaders().getFirst(tokenHeader);
+		if (header == null || !header.startsWith(BEARER)) {
+			return Mono.empty();
+		}
+		return Mono.just(new JwtAuthenticationToken(header.substring(BEARER.length())));
+	}
+}
@@ -1,6 +1,9 @@
 package com.jwtdemo.security;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,11 +20,20 @@ public class AuthenticatedUser implements UserDetails {
     private final String username;
     private final String token;
     private final Collection<? extends GrantedAuthority> authorities;
+    private final Date expiration;
+    private final Map<String, Object> claims;
 
     public AuthenticatedUser(String username, String token, Collection<? extends GrantedAuthority> authorities) {
+        this(username, token, authorities, null, Collections.emptyMap());
+    }
+
+    public AuthenticatedUser(String username, String token, Collection<? extends GrantedAuthority> authorities, Date expiration, 
+    		Map<String, Object> claims) {
         this.username = username;
         this.token = token;
         this.authorities = authorities;
+        this.expiration = expiration;
+        this.claims = claims;
     }
 
     @Override
@@ -57,6 +69,23 @@ public class AuthenticatedUser implements UserDetails {
         return token;
     }
 
+    /**
+     * @return the token's expiration (<code>exp</code> claim) or null if the token never expires
+     */
+    @JsonIgnore
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * @return all the token's claims. Depending on <code>jwt.claims.selective</code> they may only be parsed 
+     * when they are first accessed
+     */
+    @JsonIgnore
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,65 @@
+package com.jwtdemo.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Authentication of a user whose token has already been validated. Unlike the
+ * <code>UsernamePasswordAuthenticationToken</code> built by {@link JwtAuthenticationProvider} it does not copy the
+ * user's authorities, they are the (possibly interned) authorities of the {@link AuthenticatedUser}.
+ *
+ */
+@SuppressWarnings("serial")
+public class AuthenticatedUserToken implements Authentication {
+
+	private final AuthenticatedUser user;
+
+	public AuthenticatedUserToken(AuthenticatedUser user) {
+		this.user = user;
+	}
+
+	@Override
+	public String getName() {
+		return user.getUsername();
+	}
+
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return user.getAuthorities();
+	}
+
+	@Override
+	public Object getCredentials() {
+		return null;
+	}
+
+	@Override
+	public Object getDetails() {
+		return null;
+	}
+
+	@Override
+	public AuthenticatedUser getPrincipal() {
+		return user;
+	}
+
+	@Override
+	public boolean isAuthenticated() {
+		return true;
+	}
+
+	@Override
+	public void setAuthenticated(boolean isAuthenticated) {
+		if (isAuthenticated) {
+			return;
+		}
+		throw new IllegalArgumentException("AuthenticatedUserToken is always authenticated");
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [" + getName() + ", " + getAuthorities() + "]";
+	}
+}
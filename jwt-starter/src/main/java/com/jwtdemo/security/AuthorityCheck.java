@@ -0,0 +1,44 @@
+package com.jwtdemo.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Precompiled equivalent of <code>hasAuthority('...')</code>. For users whose authorities were interned by the
+ * {@link AuthorityRegistry} it is a single bit test, otherwise, or if the registry gave <code>authority</code> no bit,
+ * it falls back to scanning the authorities.
+ *
+ */
+public final class AuthorityCheck {
+
+	private final String authority;
+	private final int index;
+
+	AuthorityCheck(String authority, int index) {
+		this.authority = authority;
+		this.index = index;
+	}
+
+	public boolean isGranted(Authentication authentication) {
+		if (authentication == null || !authentication.isAuthenticated()) {
+			return false;
+		}
+		Object principal = authentication.getPrincipal();
+		if (index >= 0 && principal instanceof AuthenticatedUser) {
+			Object authorities = ((AuthenticatedUser) principal).getAuthorities();
+			if (authorities instanceof AuthoritySet) {
+				return ((AuthoritySet) authorities).has(index);
+			}
+		}
+		for (GrantedAuthority granted : authentication.getAuthorities()) {
+			if (authority.equals(granted.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public String getAuthority() {
+		return authority;
+	}
+}
@@ -0,0 +1,30 @@
+package com.jwtdemo.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Interns users' authorities and enforces {@link RequiresAuthority} annotations on controllers
+ *
+ */
+@Configuration
+@ConditionalOnClass(name = { "javax.servlet.Filter", "org.springframework.web.servlet.DispatcherServlet" })
+class AuthorityCheckConfiguration extends WebMvcConfigurerAdapter {
+
+	@Autowired
+	JWTConfiguration jwtConfiguration;
+
+	@Bean
+	public AuthorityRegistry authorityRegistry() {
+		return new AuthorityRegistry(jwtConfiguration.getMaxInternedRoles());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new AuthorityCheckInterceptor(authorityRegistry()));
+	}
+}
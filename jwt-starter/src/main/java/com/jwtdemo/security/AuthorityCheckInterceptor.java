@@ -0,0 +1,68 @@
+package com.jwtdemo.security;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Enforces {@link RequiresAuthority} on handler methods. The check for each method is resolved once and cached.
+ * Denials throw {@link AccessDeniedException} which Spring Security turns into a 403, like it does for
+ * <code>@PreAuthorize</code>.
+ *
+ */
+public class AuthorityCheckInterceptor extends HandlerInterceptorAdapter {
+
+	private static final AuthorityCheck NO_CHECK = new AuthorityCheck(null, -1);
+
+	private final AuthorityRegistry registry;
+	private final Map<Method, AuthorityCheck> checks = new ConcurrentHashMap<>();
+
+	public AuthorityCheckInterceptor(AuthorityRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!(handler instanceof HandlerMethod)) {
+			return true;
+		}
+		AuthorityCheck check = checkFor((HandlerMethod) handler);
+		if (check == NO_CHECK) {
+			return true;
+		}
+		ServerTiming timing = ServerTiming.current();
+		long start = timing == null ? 0 : System.nanoTime();
+		boolean granted = check.isGranted(SecurityContextHolder.getContext().getAuthentication());
+		if (timing != null) {
+			timing.record("authz", start);
+		}
+		if (!granted) {
+			// denials are rare, and handlers may add to the exception, so each gets its own
+			throw new AccessDeniedException("Access is denied");
+		}
+		return true;
+	}
+
+	private AuthorityCheck checkFor(HandlerMethod handler) {
+		Method method = handler.getMethod();
+		AuthorityCheck check = checks.get(method);
+		if (check == null) {
+			RequiresAuthority annotation = AnnotatedElementUtils.findMergedAnnotation(method, RequiresAuthority.class);
+			if (annotation == null) {
+				annotation = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RequiresAuthority.class);
+			}
+			check = annotation == null ? NO_CHECK : registry.check(annotation.value());
+			checks.put(method, check);
+		}
+		return check;
+	}
+}
@@ -0,0 +1,94 @@
+package com.jwtdemo.security;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Interns the authorities of each distinct role claim value (e.g. <code>ADMIN,resource.read</code>). There are very
+ * few distinct values across users, so once a value has been seen, building the user's authorities costs a map
+ * lookup and no allocation. Every authority name gets a bit in a dictionary so that {@link AuthorityCheck}s are bit
+ * tests.
+ *
+ * At most <code>maxRoleValues</code> distinct values are interned, beyond that authorities are built per call. The
+ * dictionary stops growing then as well: names it does not know by then get no bit, and checks for them compare
+ * names.
+ *
+ */
+public class AuthorityRegistry {
+
+	private final Map<String, Integer> dictionary = new ConcurrentHashMap<>();
+	private final Map<String, AuthoritySet> sets = new ConcurrentHashMap<>();
+	private final int maxRoleValues;
+
+	public AuthorityRegistry(int maxRoleValues) {
+		this.maxRoleValues = maxRoleValues;
+	}
+
+	/**
+	 * @param roles comma separated authorities
+	 */
+	public AuthoritySet authorities(String roles) {
+		AuthoritySet set = sets.get(roles);
+		if (set == null) {
+			set = build(roles);
+			if (sets.size() < maxRoleValues) {
+				AuthoritySet existing = sets.putIfAbsent(roles, set);
+				if (existing != null) {
+					set = existing;
+				}
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * @return a precompiled check for <code>authority</code>
+	 */
+	public AuthorityCheck check(String authority) {
+		return new AuthorityCheck(authority, index(authority));
+	}
+
+	int dictionarySize() {
+		return dictionary.size();
+	}
+
+	private AuthoritySet build(String roles) {
+		List<GrantedAuthority> authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(roles);
+		long[] bits = new long[0];
+		for (GrantedAuthority authority : authorities) {
+			int index = index(authority.getAuthority());
+			if (index < 0) {
+				continue;
+			}
+			int word = index >>> 6;
+			if (word >= bits.length) {
+				bits = Arrays.copyOf(bits, word + 1);
+			}
+			bits[word] |= 1L << index;
+		}
+		return new AuthoritySet(Collections.unmodifiableList(authorities), bits);
+	}
+
+	/**
+	 * @return the bit of <code>authority</code>, or -1 if it has none and we no longer intern
+	 */
+	private int index(String authority) {
+		Integer index = dictionary.get(authority);
+		if (index == null) {
+			// otherwise tokens with ever new role names would grow the dictionary, and the bits of every set, forever
+			if (sets.size() >= maxRoleValues) {
+				return -1;
+			}
+			synchronized (dictionary) {
+				index = dictionary.computeIfAbsent(authority, a -> dictionary.size());
+			}
+		}
+		return index;
+	}
+}
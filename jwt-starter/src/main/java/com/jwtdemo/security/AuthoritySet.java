@@ -0,0 +1,49 @@
+package com.jwtdemo.security;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Immutable set of authorities interned by the {@link AuthorityRegistry}. Besides the authorities themselves it
+ * keeps a bitset over the registry's authority dictionary so that checking for an authority is a bit test rather than
+ * a scan of the authorities comparing strings.
+ *
+ */
+public final class AuthoritySet extends AbstractCollection<GrantedAuthority> {
+
+	private final List<GrantedAuthority> authorities;
+	private final long[] bits;
+
+	AuthoritySet(List<GrantedAuthority> authorities, long[] bits) {
+		this.authorities = authorities;
+		this.bits = bits;
+	}
+
+	boolean has(int index) {
+		int word = index >>> 6;
+		return word < bits.length && (bits[word] & (1L << index)) != 0;
+	}
+
+	@Override
+	public Iterator<GrantedAuthority> iterator() {
+		return authorities.iterator();
+	}
+
+	@Override
+	public int size() {
+		return authorities.size();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj || (obj instanceof AuthoritySet && authorities.equals(((AuthoritySet) obj).authorities));
+	}
+
+	@Override
+	public int hashCode() {
+		return authorities.hashCode();
+	}
+}
@@ -1,6 +1,7 @@
 package com.jwtdemo.security;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
@@ -10,11 +11,27 @@ import org.springframework.http.client.ClientHttpResponse;
 
 public class AuthorizationHeaderInjector implements ClientHttpRequestInterceptor {
 
-	private String authorizationHeader;
-	
+	private final Supplier<String> tokenSupplier;
+	private volatile Header header;
+	private JwtMetrics.Timer timer;
+
     public AuthorizationHeaderInjector(String token) {
+		this(() -> token);
+	}
+
+    /**
+     * @param tokenSupplier asked for the token on every request, e.g. a {@link ServiceTokenManager}
+     */
+    public AuthorizationHeaderInjector(Supplier<String> tokenSupplier) {
 		super();
-		this.authorizationHeader = "Bearer " + token;
+		this.tokenSupplier = tokenSupplier;
+	}
+
+	/**
+	 * Time the calls made through this interceptor as <code>metrics.outbound(client)</code>. Optional.
+	 */
+	public void setMetrics(JwtMetrics metrics, String client) {
+		this.timer = metrics.outbound(client);
 	}
 
 	@Override
@@ -23,7 +40,38 @@ public class AuthorizationHeaderInjector implements ClientHttpRequestInterceptor
             throws IOException {
 
         HttpHeaders headers = request.getHeaders();
-        headers.add("Authorization", authorizationHeader);
-        return execution.execute(request, body);
+        headers.add("Authorization", authorizationHeader());
+        if (timer == null) {
+        	return execution.execute(request, body);
+        }
+        long start = System.nanoTime();
+        try {
+        	return execution.execute(request, body);
+        } finally {
+        	timer.record(System.nanoTime() - start);
+        }
     }
-}
\ No newline at end of file
+
+	private String authorizationHeader() {
+		String token = tokenSupplier.get();
+		Header header = this.header;
+		if (header == null || header.token != token) {
+			header = new Header(token);
+			this.header = header;
+		}
+		return header.value;
+	}
+
+	/**
+	 * The header for the latest token, so that we do not build a new String on each request
+	 */
+	private static final class Header {
+		final String token;
+		final String value;
+
+		Header(String token) {
+			this.token = token;
+			this.value = "Bearer " + token;
+		}
+	}
+}
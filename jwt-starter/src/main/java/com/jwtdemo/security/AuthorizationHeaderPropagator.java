@@ -11,6 +11,27 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 public class AuthorizationHeaderPropagator implements ClientHttpRequestInterceptor {
 
+	private final TokenExchanger tokenExchanger;
+	private JwtMetrics.Timer timer;
+
+	public AuthorizationHeaderPropagator() {
+		this(null);
+	}
+
+	/**
+	 * @param tokenExchanger sends a downscoped token rather than the user's own token
+	 */
+	public AuthorizationHeaderPropagator(TokenExchanger tokenExchanger) {
+		this.tokenExchanger = tokenExchanger;
+	}
+
+	/**
+	 * Time the calls made through this interceptor as <code>metrics.outbound(client)</code>. Optional.
+	 */
+	public void setMetrics(JwtMetrics metrics, String client) {
+		this.timer = metrics.outbound(client);
+	}
+
     @Override
     public ClientHttpResponse intercept(
             HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
@@ -18,7 +39,16 @@ public class AuthorizationHeaderPropagator implements ClientHttpRequestIntercept
 
         HttpHeaders headers = request.getHeaders();
         AuthenticatedUser user = (AuthenticatedUser)SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        headers.add("Authorization", "Bearer " + user.getToken());
-        return execution.execute(request, body);
+        String token = tokenExchanger == null ? user.getToken() : tokenExchanger.exchange(user);
+        headers.add("Authorization", "Bearer " + token);
+        if (timer == null) {
+        	return execution.execute(request, body);
+        }
+        long start = System.nanoTime();
+        try {
+        	return execution.execute(request, body);
+        } finally {
+        	timer.record(System.nanoTime() - start);
+        }
     }
-}
\ No newline at end of file
+}
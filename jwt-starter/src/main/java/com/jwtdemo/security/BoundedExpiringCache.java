@@ -0,0 +1,125 @@
+package com.jwtdemo.security;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded concurrent cache whose entries carry their own expiry instant. When the cache is full the
+ * entries are evicted in insertion order (FIFO): the oldest entry goes first however often it is read, this is not
+ * an LRU cache. Expired entries are dropped when they are looked up.
+ *
+ * Reads never lock: a lookup is a single {@link ConcurrentHashMap#get(Object)} plus a clock comparison.
+ *
+ */
+public class BoundedExpiringCache<K, V> {
+
+	private final int maxSize;
+	private final ConcurrentHashMap<K, Entry<K, V>> entries;
+	private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public BoundedExpiringCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0");
+		}
+		this.maxSize = maxSize;
+		this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+	}
+
+	/**
+	 * @return the cached value or null if there is none or it expired before <code>now</code>
+	 */
+	public V get(K key, long now) {
+		Entry<K, V> entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		if (entry.expiresAt <= now) {
+			if (entries.remove(key, entry)) {
+				evictions.increment();
+			}
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * Caches <code>value</code> until <code>expiresAt</code> (epoch millis) at the latest.
+	 */
+	public void put(K key, V value, long expiresAt) {
+		Entry<K, V> entry = new Entry<>(key, value, expiresAt);
+		entries.put(key, entry);
+		insertionOrder.offer(entry);
+		if (queued.incrementAndGet() > maxSize) {
+			evictOldest();
+		}
+	}
+
+	public void remove(K key) {
+		entries.remove(key);
+	}
+
+	public void clear() {
+		entries.clear();
+		// otherwise the cleared entries would still count against maxSize
+		while (insertionOrder.poll() != null) {
+			queued.decrementAndGet();
+		}
+	}
+
+	private void evictOldest() {
+		while (queued.get() > maxSize) {
+			Entry<K, V> oldest = insertionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			queued.decrementAndGet();
+			// only counts if the entry was still live, it may have been replaced or expired since
+			if (entries.remove(oldest.key, oldest)) {
+				evictions.increment();
+			}
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private static final class Entry<K, V> {
+		final K key;
+		final V value;
+		final long expiresAt;
+
+		Entry(K key, V value, long expiresAt) {
+			this.key = key;
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.jwtdemo.security;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.jsonwebtoken.CompressionCodec;
+import io.jsonwebtoken.CompressionCodecResolver;
+import io.jsonwebtoken.CompressionException;
+import io.jsonwebtoken.Header;
+
+/**
+ * Inflates the payload of tokens with a <code>"zip":"DEF"</code> header: raw DEFLATE as RFC 7516 says, or the zlib
+ * format jjwt 0.6 produces. jjwt 0.6 names the header <code>calg</code>, after a draft of the RFC, we read both.
+ *
+ * jjwt inflates the payload before it verifies the signature, so anyone can make us inflate a token. We give up once
+ * the payload grows beyond <code>maxLength</code> bytes rather than let a small token inflate to megabytes.
+ *
+ */
+final class DeflateCodecResolver implements CompressionCodecResolver, CompressionCodec {
+
+	static final String ZIP = "zip";
+	static final String DEFLATE = "DEF";
+
+	private final int maxLength;
+
+	DeflateCodecResolver(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes") // jjwt 0.6's interface takes a raw Header
+	public CompressionCodec resolveCompressionCodec(Header header) {
+		Object zip = header.containsKey(ZIP) ? header.get(ZIP) : header.getCompressionAlgorithm();
+		if (zip == null) {
+			return null;
+		}
+		if (!DEFLATE.equals(zip)) {
+			throw new CompressionException("Unsupported compression algorithm " + zip);
+		}
+		return this;
+	}
+
+	@Override
+	public String getAlgorithmName() {
+		return DEFLATE;
+	}
+
+	@Override
+	public byte[] compress(byte[] payload) {
+		throw new CompressionException("We only inflate tokens, we do not issue them");
+	}
+
+	@Override
+	public byte[] decompress(byte[] compressed) {
+		boolean zlib = isZlib(compressed);
+		try {
+			return inflate(compressed, !zlib);
+		} catch (DataFormatException e) {
+			try {
+				// a raw stream may happen to start like a zlib header
+				return inflate(compressed, zlib);
+			} catch (DataFormatException retry) {
+				throw new CompressionException("Invalid compressed payload", e);
+			}
+		}
+	}
+
+	private byte[] inflate(byte[] compressed, boolean nowrap) throws DataFormatException {
+		Inflater inflater = new Inflater(nowrap);
+		try {
+			// with nowrap the Inflater wants an extra dummy byte after the stream
+			inflater.setInput(nowrap ? Arrays.copyOf(compressed, compressed.length + 1) : compressed);
+			byte[] buffer = new byte[Math.min(maxLength, Math.max(256, compressed.length * 4))];
+			int length = 0;
+			while (!inflater.finished()) {
+				if (length == buffer.length) {
+					if (length == maxLength) {
+						throw new CompressionException("Payload inflates beyond " + maxLength + " bytes");
+					}
+					buffer = Arrays.copyOf(buffer, (int) Math.min(maxLength, 2L * length));
+				}
+				int inflated = inflater.inflate(buffer, length, buffer.length - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException("Truncated compressed payload");
+				}
+				length += inflated;
+			}
+			return Arrays.copyOf(buffer, length);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static boolean isZlib(byte[] compressed) {
+		return compressed.length > 1 && (compressed[0] & 0x0f) == 8
+				&& (((compressed[0] & 0xff) << 8) | (compressed[1] & 0xff)) % 31 == 0;
+	}
+}
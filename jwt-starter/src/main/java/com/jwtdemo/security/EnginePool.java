@@ -0,0 +1,60 @@
+package com.jwtdemo.security;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of Mac/Signature/MessageDigest instances shared by all threads. Thread locals do not work with
+ * virtual threads: each request runs on a new thread, so each request would initialize a new instance. Hashing and
+ * signature checks never block, hence the number of instances in use at a time stays close to the number of cores,
+ * and we keep at most twice as many idle ones.
+ *
+ */
+class EnginePool<T> {
+
+	static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+	private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final Supplier<T> factory;
+	private final int maxIdle;
+
+	EnginePool(Supplier<T> factory) {
+		this(factory, DEFAULT_MAX_IDLE);
+	}
+
+	EnginePool(Supplier<T> factory, int maxIdle) {
+		this.factory = factory;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * @return an idle instance, or a new one if there is none
+	 */
+	T acquire() {
+		T engine = idle.poll();
+		if (engine == null) {
+			return factory.get();
+		}
+		idleCount.decrementAndGet();
+		return engine;
+	}
+
+	/**
+	 * Gives back an instance in a clean state, i.e. it was used successfully. We drop it if there are already
+	 * <code>maxIdle</code> idle instances.
+	 */
+	void release(T engine) {
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(engine);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	int idleCount() {
+		return idleCount.get();
+	}
+}
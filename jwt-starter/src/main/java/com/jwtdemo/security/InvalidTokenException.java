@@ -0,0 +1,28 @@
+package com.jwtdemo.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * Rejection raised by {@link TokenPreCheck}. They are preallocated and carry no stack trace because they are thrown
+ * for garbage tokens, possibly at a very high rate, and there is nothing to learn from where they were thrown.
+ *
+ */
+@SuppressWarnings("serial")
+public class InvalidTokenException extends BadCredentialsException {
+
+	public static final InvalidTokenException EMPTY = new InvalidTokenException("JWT token is empty");
+	public static final InvalidTokenException TOO_LONG = new InvalidTokenException("JWT token is too long");
+	public static final InvalidTokenException MALFORMED = new InvalidTokenException("JWT must have 3 non-empty segments");
+	public static final InvalidTokenException NOT_BASE64URL = new InvalidTokenException("JWT contains characters not allowed in base64url");
+	public static final InvalidTokenException BAD_HEADER = new InvalidTokenException("JWT header does not declare the signature algorithm");
+	public static final InvalidTokenException UNEXPECTED_ALGORITHM = new InvalidTokenException("JWT is not signed with the expected algorithm");
+
+	private InvalidTokenException(String msg) {
+		super(msg);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
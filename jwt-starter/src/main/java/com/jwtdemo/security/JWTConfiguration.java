@@ -1,6 +1,7 @@
 package com.jwtdemo.security;
 
-import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -9,7 +10,9 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "jwt")
 class JWTConfiguration {
 
-	@NotNull
+	/**
+	 * Verification key. Required unless we use a key ring, in which case it verifies tokens without <code>kid</code>
+	 */
 	private String key;
 
 	private String keyAlgorithm;
@@ -20,6 +23,56 @@ class JWTConfiguration {
 
     private String tokenHeader = "Authorization";
 
+	/**
+	 * Authenticate with {@link LightweightJwtAuthenticationFilter} rather than going through the AuthenticationManager
+	 */
+	private boolean lightweightFilter;
+
+	/**
+	 * Add a <b>Server-Timing</b> header to every response, see {@link ServerTiming}
+	 */
+	private boolean serverTiming;
+
+	/**
+	 * Send only <code>total</code> in <b>Server-Timing</b>: the other phases and the downstream calls tell callers
+	 * how we authenticate and which services we call. For services exposed to the outside, e.g. the gateway.
+	 */
+	private boolean serverTimingTotalOnly;
+
+	/**
+	 * Remote addresses which get every phase even with <code>serverTimingTotalOnly</code>
+	 */
+	private List<String> serverTimingTrustedAddresses = new ArrayList<>();
+
+	/**
+	 * How many distinct role claim values we intern, see {@link AuthorityRegistry}
+	 */
+	private int maxInternedRoles = 1024;
+
+	/**
+	 * File of known role names, one per line, for tokens carrying role indexes, see {@link RoleDictionary}
+	 */
+	private String roleDictionary;
+
+	/**
+	 * Compressed (<code>"zip":"DEF"</code>) tokens are rejected when their payload inflates beyond this many bytes
+	 */
+	private int maxPayloadLength = SharedJwtParser.DEFAULT_MAX_PAYLOAD_LENGTH;
+
+	private final Cache cache = new Cache();
+
+	private final PreCheck preCheck = new PreCheck();
+
+	private final KeyRing keyRing = new KeyRing();
+
+	private final Claims claims = new Claims();
+
+	private final ServiceToken serviceToken = new ServiceToken();
+
+	private final TokenExchange tokenExchange = new TokenExchange();
+
+	private final Metrics metrics = new Metrics();
+
 	public String getKey() {
 		return key;
 	}
@@ -59,4 +112,427 @@ class JWTConfiguration {
 	public void setKeyAlgorithm(String keyAlgorithm) {
 		this.keyAlgorithm = keyAlgorithm;
 	}
-}
\ No newline at end of file
+
+	public boolean isLightweightFilter() {
+		return lightweightFilter;
+	}
+
+	public void setLightweightFilter(boolean lightweightFilter) {
+		this.lightweightFilter = lightweightFilter;
+	}
+
+	public boolean isServerTiming() {
+		return serverTiming;
+	}
+
+	public void setServerTiming(boolean serverTiming) {
+		this.serverTiming = serverTiming;
+	}
+
+	public boolean isServerTimingTotalOnly() {
+		return serverTimingTotalOnly;
+	}
+
+	public void setServerTimingTotalOnly(boolean serverTimingTotalOnly) {
+		this.serverTimingTotalOnly = serverTimingTotalOnly;
+	}
+
+	public List<String> getServerTimingTrustedAddresses() {
+		return serverTimingTrustedAddresses;
+	}
+
+	public void setServerTimingTrustedAddresses(List<String> serverTimingTrustedAddresses) {
+		this.serverTimingTrustedAddresses = serverTimingTrustedAddresses;
+	}
+
+	public int getMaxInternedRoles() {
+		return maxInternedRoles;
+	}
+
+	public void setMaxInternedRoles(int maxInternedRoles) {
+		this.maxInternedRoles = maxInternedRoles;
+	}
+
+	public String getRoleDictionary() {
+		return roleDictionary;
+	}
+
+	public void setRoleDictionary(String roleDictionary) {
+		this.roleDictionary = roleDictionary;
+	}
+
+	public int getMaxPayloadLength() {
+		return maxPayloadLength;
+	}
+
+	public void setMaxPayloadLength(int maxPayloadLength) {
+		this.maxPayloadLength = maxPayloadLength;
+	}
+
+	public Cache getCache() {
+		return cache;
+	}
+
+	public PreCheck getPreCheck() {
+		return preCheck;
+	}
+
+	public KeyRing getKeyRing() {
+		return keyRing;
+	}
+
+	public Claims getClaims() {
+		return claims;
+	}
+
+	public ServiceToken getServiceToken() {
+		return serviceToken;
+	}
+
+	public TokenExchange getTokenExchange() {
+		return tokenExchange;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Cache of already validated tokens. Disabled unless <code>jwt.cache.maxSize</code> is greater than 0.
+	 */
+	public static class Cache {
+
+		private int maxSize = 0;
+
+		/**
+		 * How long (seconds) we keep tokens which have no <code>exp</code> claim
+		 */
+		private long timeToLive = 300;
+
+		public boolean isEnabled() {
+			return maxSize > 0;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public long getTimeToLive() {
+			return timeToLive;
+		}
+
+		public void setTimeToLive(long timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+	}
+
+	/**
+	 * Structural checks done on every token before verifying it, see {@link TokenPreCheck}
+	 */
+	public static class PreCheck {
+
+		private boolean enabled = true;
+
+		private int maxLength = 8192;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxLength() {
+			return maxLength;
+		}
+
+		public void setMaxLength(int maxLength) {
+			this.maxLength = maxLength;
+		}
+	}
+
+	/**
+	 * Keys indexed by <code>kid</code>, see {@link com.jwtdemo.security.KeyRing}
+	 */
+	public static class KeyRing {
+
+		/**
+		 * JWKS file or directory of <code>&lt;kid&gt;.pem</code> files
+		 */
+		private String location;
+
+		/**
+		 * Reload the keys when the files change
+		 */
+		private boolean watch = true;
+
+		public boolean isEnabled() {
+			return location != null;
+		}
+
+		public String getLocation() {
+			return location;
+		}
+
+		public void setLocation(String location) {
+			this.location = location;
+		}
+
+		public boolean isWatch() {
+			return watch;
+		}
+
+		public void setWatch(boolean watch) {
+			this.watch = watch;
+		}
+	}
+
+	/**
+	 * How much of the token's claims we parse, see {@link SelectedClaims}
+	 */
+	public static class Claims {
+
+		/**
+		 * Only extract the claims we validate (sub, aud, exp, nbf, iat, iss and the role claim) plus
+		 * <code>extract</code>. Others are parsed on demand.
+		 */
+		private boolean selective = false;
+
+		private List<String> extract = new ArrayList<>();
+
+		public boolean isSelective() {
+			return selective;
+		}
+
+		public void setSelective(boolean selective) {
+			this.selective = selective;
+		}
+
+		public List<String> getExtract() {
+			return extract;
+		}
+
+		public void setExtract(List<String> extract) {
+			this.extract = extract;
+		}
+	}
+
+	/**
+	 * This application's own token to call another service, see {@link ServiceTokenManager}. Disabled unless
+	 * <code>jwt.serviceToken.audience</code> is set.
+	 */
+	public static class ServiceToken {
+
+		private String audience;
+
+		/**
+		 * Defaults to <code>spring.application.name</code>
+		 */
+		private String subject;
+
+		/**
+		 * Comma-separated roles put in the role claim, if any
+		 */
+		private String roles;
+
+		/**
+		 * Symmetrical key or PKCS8 PEM private key we sign tokens with
+		 */
+		private String signingKey;
+
+		/**
+		 * Defaults to HS256 for symmetrical keys, RS256 for RSA private keys and ES256/384/512 for EC private keys
+		 */
+		private String algorithm;
+
+		/**
+		 * Lifetime (seconds) of the tokens we mint
+		 */
+		private long timeToLive = 300;
+
+		/**
+		 * How long (seconds) before they expire we renew tokens
+		 */
+		private long refreshAhead = 60;
+
+		public boolean isEnabled() {
+			return audience != null;
+		}
+
+		public String getAudience() {
+			return audience;
+		}
+
+		public void setAudience(String audience) {
+			this.audience = audience;
+		}
+
+		public String getSubject() {
+			return subject;
+		}
+
+		public void setSubject(String subject) {
+			this.subject = subject;
+		}
+
+		public String getRoles() {
+			return roles;
+		}
+
+		public void setRoles(String roles) {
+			this.roles = roles;
+		}
+
+		public String getSigningKey() {
+			return signingKey;
+		}
+
+		public void setSigningKey(String signingKey) {
+			this.signingKey = signingKey;
+		}
+
+		public String getAlgorithm() {
+			return algorithm;
+		}
+
+		public void setAlgorithm(String algorithm) {
+			this.algorithm = algorithm;
+		}
+
+		public long getTimeToLive() {
+			return timeToLive;
+		}
+
+		public void setTimeToLive(long timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public long getRefreshAhead() {
+			return refreshAhead;
+		}
+
+		public void setRefreshAhead(long refreshAhead) {
+			this.refreshAhead = refreshAhead;
+		}
+	}
+
+	/**
+	 * Downscoped tokens sent in place of the user's token, see {@link TokenExchanger}. Disabled unless
+	 * <code>jwt.tokenExchange.audience</code> is set.
+	 */
+	public static class TokenExchange {
+
+		private String audience;
+
+		/**
+		 * Only roles starting with this prefix are kept. Defaults to <code>&lt;audience&gt;.</code>
+		 */
+		private String rolePrefix;
+
+		/**
+		 * Symmetrical key or PKCS8 PEM private key we sign tokens with
+		 */
+		private String signingKey;
+
+		/**
+		 * Defaults to HS256 for symmetrical keys, RS256 for RSA private keys and ES256/384/512 for EC private keys
+		 */
+		private String algorithm;
+
+		/**
+		 * How many exchanged tokens we cache
+		 */
+		private int maxSize = 10000;
+
+		/**
+		 * Lifetime (seconds) of tokens exchanged for user tokens which do not expire
+		 */
+		private long timeToLive = 300;
+
+		/**
+		 * How long (seconds) before they expire we stop using cached tokens
+		 */
+		private long refreshMargin = 30;
+
+		public boolean isEnabled() {
+			return audience != null;
+		}
+
+		public String getAudience() {
+			return audience;
+		}
+
+		public void setAudience(String audience) {
+			this.audience = audience;
+		}
+
+		public String getRolePrefix() {
+			return rolePrefix == null ? audience + "." : rolePrefix;
+		}
+
+		public void setRolePrefix(String rolePrefix) {
+			this.rolePrefix = rolePrefix;
+		}
+
+		public String getSigningKey() {
+			return signingKey;
+		}
+
+		public void setSigningKey(String signingKey) {
+			this.signingKey = signingKey;
+		}
+
+		public String getAlgorithm() {
+			return algorithm;
+		}
+
+		public void setAlgorithm(String algorithm) {
+			this.algorithm = algorithm;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public long getTimeToLive() {
+			return timeToLive;
+		}
+
+		public void setTimeToLive(long timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public long getRefreshMargin() {
+			return refreshMargin;
+		}
+
+		public void setRefreshMargin(long refreshMargin) {
+			this.refreshMargin = refreshMargin;
+		}
+	}
+
+	/**
+	 * Timers and counters of the authentication stages and outbound calls, see {@link JwtMetrics}
+	 */
+	public static class Metrics {
+
+		private boolean enabled = true;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+	}
+}
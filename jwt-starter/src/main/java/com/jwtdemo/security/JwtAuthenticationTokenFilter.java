@@ -19,19 +19,35 @@ import org.springframework.security.web.authentication.AbstractAuthenticationPro
 public class JwtAuthenticationTokenFilter extends AbstractAuthenticationProcessingFilter {
 
     private String tokenHeader;
+    private JwtMetrics metrics;
 
     public JwtAuthenticationTokenFilter(String tokenHeader) {
         super("/**");
         this.tokenHeader = tokenHeader;
     }
 
+    /**
+     * Time header extraction and count requests without a token. Optional.
+     */
+    public void setMetrics(JwtMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Attempt to authenticate request - basically just pass over to another method to authenticate request headers
      */
     @Override
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) {
-        
-        return getAuthenticationManager().authenticate(extractToken(request));
+        ServerTiming timing = ServerTiming.current();
+        if (timing == null) {
+            return getAuthenticationManager().authenticate(extractToken(request));
+        }
+        long start = System.nanoTime();
+        try {
+            return getAuthenticationManager().authenticate(extractToken(request));
+        } finally {
+            timing.record("auth", start);
+        }
     }
 
   
@@ -48,14 +64,22 @@ public class JwtAuthenticationTokenFilter extends AbstractAuthenticationProcessi
     public static final String BEARER = "Bearer ";
     
     private JwtAuthenticationToken extractToken(HttpServletRequest request) {
+    	long start = metrics == null ? 0 : System.nanoTime();
     	// Assumes it has only one token header instance
     	String header = request.getHeader(this.tokenHeader);
     	
         if (header == null || !header.startsWith(BEARER)) {
+        	if (metrics != null) {
+        		metrics.failed(JwtMetrics.Failure.MISSING_TOKEN);
+        	}
             throw new AuthenticationCredentialsNotFoundException("JWT token not found");
         }
 
-        return new JwtAuthenticationToken(header.substring(BEARER.length()));
+        JwtAuthenticationToken token = new JwtAuthenticationToken(header.substring(BEARER.length()));
+        if (metrics != null) {
+        	metrics.getHeaderExtraction().record(System.nanoTime() - start);
+        }
+        return token;
 
     }
 }
\ No newline at end of file
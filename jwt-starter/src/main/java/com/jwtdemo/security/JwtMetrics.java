@@ -0,0 +1,135 @@
+package com.jwtdemo.security;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.CompressionException;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.InvalidClaimException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Where the time of authenticating requests and calling other services goes: header extraction, signature
+ * verification, claim mapping and each outbound call, plus the tokens we reject by reason. Exported in
+ * <code>/metrics</code> when the actuator is present, see {@link JwtPublicMetrics}.
+ *
+ * Every thread records into {@link LongAdder}s, there are no locks or allocations on the request path.
+ *
+ */
+public class JwtMetrics {
+
+	public enum Failure {
+		MISSING_TOKEN("missingToken"), MALFORMED("malformed"), EXPIRED("expired"), BAD_SIGNATURE("badSignature"),
+		WRONG_AUDIENCE("wrongAudience"), MISSING_SUBJECT("missingSubject"), OTHER("other");
+
+		final String metricName;
+
+		Failure(String metricName) {
+			this.metricName = metricName;
+		}
+
+		static Failure of(JwtException e) {
+			if (e instanceof ExpiredJwtException) {
+				return EXPIRED;
+			}
+			if (e instanceof SignatureException) {
+				return BAD_SIGNATURE;
+			}
+			if (e instanceof InvalidClaimException && Claims.AUDIENCE.equals(((InvalidClaimException) e).getClaimName())) {
+				return WRONG_AUDIENCE;
+			}
+			if (e instanceof MalformedJwtException || e instanceof UnsupportedJwtException || e instanceof CompressionException) {
+				return MALFORMED;
+			}
+			return OTHER;
+		}
+	}
+
+	private final Timer headerExtraction = new Timer();
+	private final Timer verification = new Timer();
+	private final Timer claimMapping = new Timer();
+	private final LongAdder[] failures = new LongAdder[Failure.values().length];
+	private final ConcurrentMap<String, Timer> outbound = new ConcurrentHashMap<>();
+
+	public JwtMetrics() {
+		for (int i = 0; i < failures.length; i++) {
+			failures[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * From the <b>Authorization</b> header to the token
+	 */
+	public Timer getHeaderExtraction() {
+		return headerExtraction;
+	}
+
+	/**
+	 * Parsing the token and verifying its signature, expiry and audience
+	 */
+	public Timer getVerification() {
+		return verification;
+	}
+
+	/**
+	 * From the verified claims to the authenticated user, authorities included
+	 */
+	public Timer getClaimMapping() {
+		return claimMapping;
+	}
+
+	/**
+	 * Calls to the service <code>client</code>, until its response headers come back. Look it up once, not per call.
+	 */
+	public Timer outbound(String client) {
+		return outbound.computeIfAbsent(client, name -> new Timer());
+	}
+
+	public Map<String, Timer> getOutbound() {
+		return Collections.unmodifiableMap(outbound);
+	}
+
+	public void failed(Failure failure) {
+		failures[failure.ordinal()].increment();
+	}
+
+	public long getFailures(Failure failure) {
+		return failures[failure.ordinal()].sum();
+	}
+
+	/**
+	 * Count, total and max of the durations recorded in nanoseconds
+	 */
+	public static final class Timer {
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		public void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.jwtdemo.security;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Records {@link JwtMetrics} unless <code>jwt.metrics.enabled</code> is false, and exports them in
+ * <code>/metrics</code> when the actuator is present. Applications pass the {@link JwtMetrics} to their
+ * {@link AuthorizationHeaderPropagator}s and {@link AuthorizationHeaderInjector}s to time outbound calls.
+ *
+ */
+@Configuration
+@ConditionalOnClass(name = { "javax.servlet.Filter", "org.springframework.web.servlet.DispatcherServlet" })
+@ConditionalOnProperty(prefix = "jwt.metrics", name = "enabled", matchIfMissing = true)
+class JwtMetricsConfiguration {
+
+	@Bean
+	public JwtMetrics jwtMetrics() {
+		return new JwtMetrics();
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+	static class Export {
+
+		@Bean
+		public PublicMetrics jwtPublicMetrics(JwtMetrics jwtMetrics, JwtTokenValidator jwtTokenValidator) {
+			return new JwtPublicMetrics(jwtMetrics, jwtTokenValidator);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.jwtdemo.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Exposes {@link JwtMetrics} in <code>/metrics</code>: <code>jwt.header.*</code>, <code>jwt.verify.*</code>,
+ * <code>jwt.claims.*</code> and <code>jwt.outbound.{client}.*</code> timers (<code>count</code>,
+ * <code>totalMillis</code>, <code>meanMicros</code>, <code>maxMicros</code>), <code>jwt.failures.{reason}</code>
+ * counters and, when tokens are cached, <code>jwt.cache.*</code>
+ *
+ */
+class JwtPublicMetrics implements PublicMetrics {
+
+	private final JwtMetrics jwtMetrics;
+	private final JwtTokenValidator validator;
+
+	JwtPublicMetrics(JwtMetrics jwtMetrics, JwtTokenValidator validator) {
+		this.jwtMetrics = jwtMetrics;
+		this.validator = validator;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		add(metrics, "jwt.header.", jwtMetrics.getHeaderExtraction());
+		add(metrics, "jwt.verify.", jwtMetrics.getVerification());
+		add(metrics, "jwt.claims.", jwtMetrics.getClaimMapping());
+		for (Map.Entry<String, JwtMetrics.Timer> client : jwtMetrics.getOutbound().entrySet()) {
+			add(metrics, "jwt.outbound." + client.getKey() + ".", client.getValue());
+		}
+		for (JwtMetrics.Failure failure : JwtMetrics.Failure.values()) {
+			metrics.add(new Metric<>("jwt.failures." + failure.metricName, jwtMetrics.getFailures(failure)));
+		}
+		VerifiedTokenCache cache = validator.getTokenCache();
+		if (cache != null) {
+			metrics.add(new Metric<>("jwt.cache.size", cache.size()));
+			metrics.add(new Metric<>("jwt.cache.hits", cache.getHitCount()));
+			metrics.add(new Metric<>("jwt.cache.misses", cache.getMissCount()));
+			metrics.add(new Metric<>("jwt.cache.evictions", cache.getEvictionCount()));
+		}
+		return metrics;
+	}
+
+	private static void add(List<Metric<?>> metrics, String prefix, JwtMetrics.Timer timer) {
+		long count = timer.getCount();
+		long totalNanos = timer.getTotalNanos();
+		metrics.add(new Metric<>(prefix + "count", count));
+		metrics.add(new Metric<>(prefix + "totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos)));
+		metrics.add(new Metric<>(prefix + "meanMicros", count == 0 ? 0 : totalNanos / count / 1000.0));
+		metrics.add(new Metric<>(prefix + "maxMicros", TimeUnit.NANOSECONDS.toMicros(timer.getMaxNanos())));
+	}
+}
@@ -1,5 +1,6 @@
 package com.jwtdemo.security;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.Key;
 import java.security.KeyFactory;
@@ -7,12 +8,16 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
@@ -20,96 +25,281 @@ import org.springframework.util.StringUtils;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.JwtParser;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 
 
-public class JwtTokenValidator {
+public class JwtTokenValidator implements DisposableBean {
 
-    private Key key;
-    private String requireAudience;
+    private final SharedJwtParser parser;
+    private KeyRing keyRing;
     private String roleClaimName;
+    // read by the KeyRing's watcher thread on reload
+    private volatile VerifiedTokenCache tokenCache;
+    private volatile TokenPreCheck preCheck;
+    private AuthorityRegistry authorityRegistry;
+    private RoleDictionary roleDictionary;
+    private JwtMetrics metrics;
         
     public JwtTokenValidator(Key key, String requireAudience, String roleClaimName) {
-		super();
-		this.key = key;
+		this(new SharedJwtParser(), requireAudience, roleClaimName);
+		parser.setSigningKey(key);
+	}
+
+    /**
+     * Verifies tokens with the key matching their <code>kid</code> header
+     */
+    public JwtTokenValidator(KeyRing keyRing, String requireAudience, String roleClaimName) {
+		this(new SharedJwtParser(), requireAudience, roleClaimName);
+		parser.setSigningKeyResolver(new KeyRingSigningKeyResolver(keyRing));
+		this.keyRing = keyRing;
 		
-		this.requireAudience = requireAudience;
+		keyRing.addListener(() -> {
+			parser.retainKeys(keyRing.getKeys());
+			if (preCheck != null) {
+				preCheck.setAllowedAlgorithms(TokenPreCheck.algorithmsFor(keyRing.getKeys(), null));
+			}
+			if (tokenCache != null) {
+				// some of the keys may have been revoked
+				tokenCache.clear();
+			}
+		});
+	}
+
+    private JwtTokenValidator(SharedJwtParser parser, String requireAudience, String roleClaimName) {
+		super();
 		this.roleClaimName = roleClaimName;
+		
+		// Built once and shared by all threads, see SharedJwtParser
+		this.parser = parser;
+		if (requireAudience != null) {
+			parser.requireAudience(requireAudience);
+		}
+	}
+
+    /**
+     * Skip signature verification for tokens we have already validated. Optional.
+     */
+    public void setTokenCache(VerifiedTokenCache tokenCache) {
+		this.tokenCache = tokenCache;
+	}
+
+    /**
+     * Only extract the header fields and claims we need to validate the token, plus <code>claims</code>, when we
+     * parse the token. Any other claim is parsed when it is first accessed via {@link AuthenticatedUser#getClaims()}.
+     */
+    public void setSelectiveClaims(Collection<String> claims) {
+		List<String> names = new ArrayList<>(Arrays.asList(
+				// header
+				JwsHeader.ALGORITHM, JwsHeader.KEY_ID, JwsHeader.TYPE, JwsHeader.CONTENT_TYPE, JwsHeader.COMPRESSION_ALGORITHM,
+				DeflateCodecResolver.ZIP,
+				// registered claims jjwt or we validate
+				Claims.SUBJECT, Claims.AUDIENCE, Claims.EXPIRATION, Claims.NOT_BEFORE, Claims.ISSUED_AT, Claims.ISSUER));
+		if (roleClaimName != null) {
+			names.add(roleClaimName);
+		}
+		names.addAll(claims);
+		parser.setSelectedClaims(names);
+	}
+
+    /**
+     * Intern the authorities built from the role claim. Optional.
+     */
+    public void setAuthorityRegistry(AuthorityRegistry authorityRegistry) {
+		this.authorityRegistry = authorityRegistry;
+	}
+
+    /**
+     * Decode role claims carrying indexes into <code>roleDictionary</code>. Optional.
+     */
+    public void setRoleDictionary(RoleDictionary roleDictionary) {
+		this.roleDictionary = roleDictionary;
+	}
+
+    /**
+     * Reject compressed (<code>"zip":"DEF"</code>) tokens whose payload inflates beyond <code>maxPayloadLength</code>
+     * bytes. Defaults to 64 KB.
+     */
+    public void setMaxPayloadLength(int maxPayloadLength) {
+		parser.setCompressionCodecResolver(new DeflateCodecResolver(maxPayloadLength));
+	}
+
+    /**
+     * Reject malformed tokens before doing any JSON parsing or signature verification. Optional.
+     */
+    public void setPreCheck(TokenPreCheck preCheck) {
+		this.preCheck = preCheck;
+	}
+
+    /**
+     * Time verification and claim mapping, count rejected tokens by reason. Optional.
+     */
+    public void setMetrics(JwtMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+    /**
+     * @return the cache of validated tokens (hit/miss/eviction counts) or null if caching is disabled
+     */
+    public VerifiedTokenCache getTokenCache() {
+		return tokenCache;
 	}
 
 	public AuthenticatedUser parseToken(String token) { 
+		if (preCheck != null) {
+			try {
+				preCheck.check(token);
+			} catch (InvalidTokenException e) {
+				failed(JwtMetrics.Failure.MALFORMED);
+				throw e;
+			}
+		}
+		if (tokenCache == null) {
+			return verifyToken(token);
+		}
+		AuthenticatedUser user = tokenCache.get(token);
+		if (user == null) {
+			user = verifyToken(token);
+			tokenCache.put(token, user);
+		}
+		return user;
+	}
+
+	private AuthenticatedUser verifyToken(String token) { 
+		long start = metrics == null ? 0 : System.nanoTime();
     	try {
-            Jws<Claims> jwt = parser().parseClaimsJws(token);
+            Jws<Claims> jwt = parser.parseClaimsJws(token);
+            long verified = 0;
+            if (metrics != null) {
+            	verified = System.nanoTime();
+            	metrics.getVerification().record(verified - start);
+            }
             Claims body = jwt.getBody();
             
             // Security measure: Make sure the alg header contains at least one signature algorithm
             if (StringUtils.isEmpty(jwt.getHeader().getAlgorithm()) || 
             		SignatureAlgorithm.NONE.equals(jwt.getHeader().getAlgorithm())) {
+            	failed(JwtMetrics.Failure.MALFORMED);
             	throw new BadCredentialsException("JWT must be digitally signed");
             }
             
             // Security measure: Make sure the token has a subject
             if (body.getSubject() == null) {
+            	failed(JwtMetrics.Failure.MISSING_SUBJECT);
             	throw new BadCredentialsException("Missing subject");
             }
             
             // Security measure: Enforce date validation
             // TODO
             
-           return  new AuthenticatedUser(body.getSubject(), token, buildAuthorities(body));
+            AuthenticatedUser user = new AuthenticatedUser(body.getSubject(), token, buildAuthorities(body), body.getExpiration(), body);
+            if (metrics != null) {
+            	metrics.getClaimMapping().record(System.nanoTime() - verified);
+            }
+            return user;
             
-        } catch (JwtException | UnsupportedEncodingException e) {
+        } catch (JwtException e) {
+        	if (metrics != null) {
+        		metrics.failed(JwtMetrics.Failure.of(e));
+        	}
             throw new BadCredentialsException(e.getMessage());
         }
     }
+
+	private void failed(JwtMetrics.Failure failure) {
+		if (metrics != null) {
+			metrics.failed(failure);
+		}
+	}
     
-    // Once it is confirmed that JwtParser is thread-safe we can have a single instance
-    // https://github.com/jwtk/jjwt/issues/171
-    private JwtParser parser() throws UnsupportedEncodingException {
-    	JwtParser parser =  Jwts.parser().setSigningKey(key);
-    	
-    	if (requireAudience != null) {
-    		parser.requireAudience(requireAudience);
-    	}
-    	
-    	return parser;
-    }
-    private Collection<? extends GrantedAuthority> buildAuthorities(Claims body) {
+    // package-private for jwt-benchmarks
+    Collection<? extends GrantedAuthority> buildAuthorities(Claims body) {
     	if (roleClaimName == null || !body.containsKey(roleClaimName)) {
     		return Collections.emptyList();
     	}
     	
-    	return AuthorityUtils.commaSeparatedStringToAuthorityList(body.get(roleClaimName, String.class));	
+    	Object value = body.get(roleClaimName);
+    	String roles;
+    	if (value instanceof List && roleDictionary != null) {
+    		try {
+    			roles = roleDictionary.decode((List<?>) value);
+    		} catch (IllegalArgumentException e) {
+    			failed(JwtMetrics.Failure.OTHER);
+    			throw new BadCredentialsException(e.getMessage());
+    		}
+    	} else {
+    		roles = body.get(roleClaimName, String.class);
+    	}
+    	if (roles == null) {
+    		return Collections.emptyList();
+    	}
+    	if (authorityRegistry != null) {
+    		return authorityRegistry.authorities(roles);
+    	}
+    	return AuthorityUtils.commaSeparatedStringToAuthorityList(roles);	
     	
     }
     
+    /**
+     * Stops watching the {@link KeyRing}, if any
+     */
+    @Override
+    public void destroy() throws IOException {
+    	if (keyRing != null) {
+    		keyRing.close();
+    	}
+    }
+
+    /**
+     * @return the public key of a PEM <b>PUBLIC KEY</b>, otherwise a symmetrical key made of the bytes of
+     *         <code>key</code>. Other PEM contents (private keys, certificates) are rejected rather than used as a
+     *         symmetrical key.
+     */
     public static Key buildKey(String key, String algo) throws UnsupportedEncodingException, NoSuchAlgorithmException, InvalidKeySpecException {
     	if (isPublicKey(key)) { 
     		return fromPEMtoPublicKey(key);
-    	}else {
-    		return new SecretKeySpec(key.getBytes("UTF-8"), algo == null ? "HS256" : algo);
     	}
+    	if (key.trim().startsWith(PEM_PREFIX)) {
+    		throw new InvalidKeySpecException("Only PEM public keys can verify tokens");
+    	}
+    	return new SecretKeySpec(key.getBytes("UTF-8"), algo == null ? "HS256" : algo);
     }
-    
-    private static PublicKey fromPEMtoPublicKey(String pem) throws NoSuchAlgorithmException, InvalidKeySpecException {
-		byte[] encoded = DatatypeConverter.parseBase64Binary(removeX509Wrapper(pem));
 
-		// PKCS8 decode the encoded RSA private key
-		X509EncodedKeySpec keySpec = new X509EncodedKeySpec(encoded);
-		KeyFactory kf = KeyFactory.getInstance("RSA");
-		PublicKey pubKey = kf.generatePublic(keySpec);
+    /**
+     * @return the RSA or EC key of a PEM <b>PUBLIC KEY</b>, whatever its line endings
+     * @throws InvalidKeySpecException if <code>pem</code> is anything else
+     */
+    static PublicKey fromPEMtoPublicKey(String pem) throws NoSuchAlgorithmException, InvalidKeySpecException {
+    	if (!isPublicKey(pem)) {
+    		throw new InvalidKeySpecException("Not a PEM public key");
+    	}
+		byte[] encoded;
+		try {
+			encoded = Base64.getMimeDecoder().decode(removeX509Wrapper(pem));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidKeySpecException("Invalid PEM public key", e);
+		}
 
-		return pubKey;
+		// X509 decode the encoded RSA or EC public key
+		X509EncodedKeySpec keySpec = new X509EncodedKeySpec(encoded);
+		try {
+			return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+		} catch (InvalidKeySpecException e) {
+			return KeyFactory.getInstance("EC").generatePublic(keySpec);
+		}
 	}
+    private static final String PEM_PREFIX = "-----BEGIN ";
+    private static final String PUBLIC_KEY_HEADER = "-----BEGIN PUBLIC KEY-----";
+    private static final String PUBLIC_KEY_FOOTER = "-----END PUBLIC KEY-----";
+
     private static boolean isPublicKey(String cert) {
-    	return cert.startsWith("-----BEGIN PUBLIC KEY-----\n");
+    	String trimmed = cert.trim();
+    	return trimmed.startsWith(PUBLIC_KEY_HEADER) && trimmed.endsWith(PUBLIC_KEY_FOOTER);
     }
     private static String removeX509Wrapper(String cert) {
-		cert = cert.replace("-----BEGIN PUBLIC KEY-----\n", "");
-		return cert.replace("-----END PUBLIC KEY-----", "");
+    	String trimmed = cert.trim();
+		return trimmed.substring(PUBLIC_KEY_HEADER.length(), trimmed.length() - PUBLIC_KEY_FOOTER.length());
 	}
  
 }
@@ -0,0 +1,63 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the {@link JwtTokenValidator} described by the <code>jwt.*</code> properties. Shared by the servlet and
+ * reactive security configurations.
+ *
+ */
+final class JwtTokenValidators {
+
+	private JwtTokenValidators() {
+	}
+
+	static JwtTokenValidator create(JWTConfiguration jwtConfiguration, AuthorityRegistry authorityRegistry)
+			throws IOException, GeneralSecurityException {
+		JwtTokenValidator validator;
+		Set<String> algorithms;
+		
+		Key key = jwtConfiguration.getKey() == null ? null : 
+			JwtTokenValidator.buildKey(jwtConfiguration.getKey(), jwtConfiguration.getKeyAlgorithm());
+		KeyRing keyRing = null;
+		if (jwtConfiguration.getKeyRing().isEnabled()) {
+			keyRing = new KeyRing(Paths.get(jwtConfiguration.getKeyRing().getLocation()), key);
+			validator = new JwtTokenValidator(keyRing, jwtConfiguration.getRequireAudience(), 
+					jwtConfiguration.getRoleClaimName());
+			algorithms = TokenPreCheck.algorithmsFor(keyRing.getKeys(), null);
+		} else if (key != null) {
+			validator = new JwtTokenValidator(key, jwtConfiguration.getRequireAudience(), 
+					jwtConfiguration.getRoleClaimName());
+			algorithms = TokenPreCheck.algorithmsFor(key, jwtConfiguration.getKeyAlgorithm());
+		} else {
+			throw new IllegalStateException("Either jwt.key or jwt.keyRing.location must be configured");
+		}
+		
+		validator.setAuthorityRegistry(authorityRegistry);
+		if (jwtConfiguration.getRoleDictionary() != null) {
+			validator.setRoleDictionary(RoleDictionary.load(Paths.get(jwtConfiguration.getRoleDictionary())));
+		}
+		validator.setMaxPayloadLength(jwtConfiguration.getMaxPayloadLength());
+		if (jwtConfiguration.getClaims().isSelective()) {
+			validator.setSelectiveClaims(jwtConfiguration.getClaims().getExtract());
+		}
+		JWTConfiguration.PreCheck preCheck = jwtConfiguration.getPreCheck();
+		if (preCheck.isEnabled()) {
+			validator.setPreCheck(new TokenPreCheck(preCheck.getMaxLength(), algorithms));
+		}
+		JWTConfiguration.Cache cache = jwtConfiguration.getCache();
+		if (cache.isEnabled()) {
+			validator.setTokenCache(new VerifiedTokenCache(cache.getMaxSize(), TimeUnit.SECONDS.toMillis(cache.getTimeToLive())));
+		}
+		// only once the validator is complete, reloads reconfigure it from the watcher thread
+		if (keyRing != null && jwtConfiguration.getKeyRing().isWatch()) {
+			keyRing.watch();
+		}
+		return validator;
+	}
+}
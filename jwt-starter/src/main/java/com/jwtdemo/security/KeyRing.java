@@ -0,0 +1,243 @@
+package com.jwtdemo.security;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Verification keys indexed by the JWT <code>kid</code> header. Keys are loaded either from a JWKS file (RSA, EC and
+ * oct keys) or from a directory of PEM public keys named <code>&lt;kid&gt;.pem</code>, and they are reloaded when
+ * those files change so that keys can be rotated without restarting the application.
+ *
+ * A reload builds a brand new immutable map and swaps it in one volatile write, hence lookups never lock nor see a
+ * half loaded ring. If a reload fails we keep the keys we had. A PEM directory may only hold X.509 public keys,
+ * anything else (private keys, certificates) fails the reload: a PEM is never taken as a symmetrical key, otherwise
+ * anyone holding the public key could sign HS256 tokens with it.
+ *
+ */
+public class KeyRing implements Closeable, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(KeyRing.class);
+	private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+
+	private final Path location;
+	private final Key defaultKey;
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	private volatile Map<String, Key> keys;
+	private WatchService watchService;
+	private Thread watcher;
+
+	/**
+	 * @param location JWKS file or directory of PEM files
+	 * @param defaultKey key for tokens without <code>kid</code>, it may be null
+	 */
+	public KeyRing(Path location, Key defaultKey) throws IOException, GeneralSecurityException {
+		this.location = location;
+		this.defaultKey = defaultKey;
+		this.keys = load(location);
+	}
+
+	/**
+	 * @return the key for <code>kid</code> or the default key when there is no <code>kid</code>. Null if we do not
+	 *         know the key.
+	 */
+	public Key get(String kid) {
+		return kid == null ? defaultKey : keys.get(kid);
+	}
+
+	/**
+	 * @return all the keys we currently accept, including the default key
+	 */
+	public Collection<Key> getKeys() {
+		Map<String, Key> current = keys;
+		if (defaultKey == null) {
+			return current.values();
+		}
+		List<Key> all = new ArrayList<>(current.values());
+		all.add(defaultKey);
+		return all;
+	}
+
+	public Collection<String> getKeyIds() {
+		return keys.keySet();
+	}
+
+	/**
+	 * <code>listener</code> is called after every reload
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	public synchronized void reload() {
+		try {
+			keys = load(location);
+			logger.info("Loaded keys " + keys.keySet() + " from " + location);
+		} catch (IOException | GeneralSecurityException | RuntimeException e) {
+			logger.error("Failed to reload keys from " + location + ", keeping keys " + keys.keySet(), e);
+			return;
+		}
+		listeners.forEach(Runnable::run);
+	}
+
+	/**
+	 * Reloads the keys whenever the JWKS file or a file in the PEM directory changes
+	 */
+	public synchronized void watch() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+		Path directory = Files.isDirectory(location) ? location : location.toAbsolutePath().getParent();
+		watchService = directory.getFileSystem().newWatchService();
+		directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+
+		WatchService service = watchService;
+		watcher = new Thread(() -> {
+			try {
+				while (true) {
+					WatchKey key = service.take();
+					// editors and cp usually fire several events per change, let them settle
+					TimeUnit.MILLISECONDS.sleep(200);
+					key.pollEvents();
+					reload();
+					if (!key.reset()) {
+						return;
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// closed
+			}
+		}, "jwt-keyring-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	/**
+	 * Stops watching the keys and waits for the watcher thread to finish
+	 */
+	@Override
+	public void close() throws IOException {
+		Thread stopping;
+		synchronized (this) {
+			if (watchService == null) {
+				return;
+			}
+			watchService.close();
+			watchService = null;
+			stopping = watcher;
+			watcher = null;
+		}
+		// outside of the lock, the watcher may be waiting for it in reload()
+		stopping.interrupt();
+		try {
+			stopping.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		close();
+	}
+
+	static Map<String, Key> load(Path location) throws IOException, GeneralSecurityException {
+		Map<String, Key> keys = new HashMap<>();
+		if (Files.isDirectory(location)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(location, "*.pem")) {
+				for (Path file : files) {
+					String name = file.getFileName().toString();
+					String kid = name.substring(0, name.length() - ".pem".length());
+					try {
+						keys.put(kid, JwtTokenValidator.fromPEMtoPublicKey(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+					} catch (InvalidKeySpecException e) {
+						throw new InvalidKeySpecException(file + " is not a PEM public key", e);
+					}
+				}
+			}
+		} else {
+			JsonNode jwks = new ObjectMapper().readTree(location.toFile());
+			for (JsonNode jwk : jwks.path("keys")) {
+				String kid = jwk.path("kid").asText(null);
+				if (kid == null) {
+					throw new IllegalArgumentException("Every key in " + location + " must have a kid");
+				}
+				keys.put(kid, fromJwk(jwk));
+			}
+		}
+		return Collections.unmodifiableMap(keys);
+	}
+
+	private static Key fromJwk(JsonNode jwk) throws GeneralSecurityException {
+		String kty = jwk.path("kty").asText();
+		switch (kty) {
+		case "RSA":
+			return KeyFactory.getInstance("RSA").generatePublic(
+					new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e")));
+		case "EC":
+			AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+			parameters.init(new ECGenParameterSpec(curve(jwk.path("crv").asText())));
+			ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+			return KeyFactory.getInstance("EC").generatePublic(
+					new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+		case "oct":
+			return new SecretKeySpec(BASE64URL.decode(jwk.path("k").asText()), jwk.path("alg").asText("HS256"));
+		default:
+			throw new IllegalArgumentException("Unsupported key type " + kty);
+		}
+	}
+
+	private static BigInteger unsigned(JsonNode jwk, String field) {
+		return new BigInteger(1, BASE64URL.decode(jwk.path(field).asText()));
+	}
+
+	private static String curve(String crv) {
+		switch (crv) {
+		case "P-256":
+			return "secp256r1";
+		case "P-384":
+			return "secp384r1";
+		case "P-521":
+			return "secp521r1";
+		default:
+			throw new IllegalArgumentException("Unsupported curve " + crv);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.jwtdemo.security;
+
+import java.security.Key;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+/**
+ * Picks the verification key from the {@link KeyRing} using the token's <code>kid</code> header
+ *
+ */
+class KeyRingSigningKeyResolver extends SigningKeyResolverAdapter {
+
+	private final KeyRing keyRing;
+
+	KeyRingSigningKeyResolver(KeyRing keyRing) {
+		this.keyRing = keyRing;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Key resolveSigningKey(JwsHeader header, Claims claims) {
+		return resolve(header);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Key resolveSigningKey(JwsHeader header, String plaintext) {
+		return resolve(header);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private Key resolve(JwsHeader header) {
+		Key key = keyRing.get(header.getKeyId());
+		if (key == null) {
+			// jjwt would otherwise fail with an IllegalArgumentException
+			throw new SignatureException("Unknown signing key " + header.getKeyId());
+		}
+		return key;
+	}
+}
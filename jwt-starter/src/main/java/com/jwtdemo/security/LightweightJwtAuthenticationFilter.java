@@ -0,0 +1,85 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.GenericFilterBean;
+
+/**
+ * Alternative to {@link JwtAuthenticationTokenFilter} which goes straight from the <b>Authorization</b> header to the
+ * {@link JwtTokenValidator} and puts an {@link AuthenticatedUserToken} in the security context. There is no
+ * AuthenticationManager, provider, user cache or pre/post authentication checks in between, none of which do anything
+ * for stateless tokens.
+ *
+ * Requests without a valid token are handed over to the <code>AuthenticationEntryPoint</code>.
+ *
+ */
+public class LightweightJwtAuthenticationFilter extends GenericFilterBean {
+
+	private static final String BEARER = JwtAuthenticationTokenFilter.BEARER;
+
+	private final String tokenHeader;
+	private final JwtTokenValidator validator;
+	private final AuthenticationEntryPoint entryPoint;
+	private JwtMetrics metrics;
+
+	public LightweightJwtAuthenticationFilter(String tokenHeader, JwtTokenValidator validator,
+			AuthenticationEntryPoint entryPoint) {
+		this.tokenHeader = tokenHeader;
+		this.validator = validator;
+		this.entryPoint = entryPoint;
+	}
+
+	/**
+	 * Time header extraction and count requests without a token. Optional.
+	 */
+	public void setMetrics(JwtMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+		HttpServletRequest request = (HttpServletRequest) req;
+		HttpServletResponse response = (HttpServletResponse) res;
+
+		ServerTiming timing = ServerTiming.current();
+		long start = metrics == null && timing == null ? 0 : System.nanoTime();
+		// Assumes it has only one token header instance
+		String header = request.getHeader(tokenHeader);
+		try {
+			if (header == null || !header.startsWith(BEARER)) {
+				if (metrics != null) {
+					metrics.failed(JwtMetrics.Failure.MISSING_TOKEN);
+				}
+				throw new AuthenticationCredentialsNotFoundException("JWT token not found");
+			}
+			String token = header.substring(BEARER.length());
+			if (metrics != null) {
+				metrics.getHeaderExtraction().record(System.nanoTime() - start);
+			}
+			AuthenticatedUser user = validator.parseToken(token);
+			SecurityContextHolder.getContext().setAuthentication(new AuthenticatedUserToken(user));
+			if (timing != null) {
+				timing.record("auth", start);
+			}
+		} catch (AuthenticationException e) {
+			SecurityContextHolder.clearContext();
+			if (timing != null) {
+				timing.record("auth", start);
+			}
+			entryPoint.commence(request, response, e);
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,146 @@
+package com.jwtdemo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+
+/**
+ * Verifies JWS signatures for one (algorithm, key) pair. Unlike jjwt's own validators, which look up a new
+ * <code>Mac</code>/<code>Signature</code> from the JCA providers and initialize it with the key on every token, we keep
+ * a bounded {@link EnginePool} of instances already initialized with the key, shared by all threads (virtual threads
+ * included).
+ *
+ */
+abstract class PooledSignatureValidator implements JwtSignatureValidator {
+
+	private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+
+	/**
+	 * @return a pooled validator or null if we do not handle this algorithm/key combination
+	 */
+	static PooledSignatureValidator of(SignatureAlgorithm algorithm, Key key) {
+		if (algorithm.isHmac() && key instanceof SecretKey) {
+			return new MacValidator(algorithm, (SecretKey) key);
+		}
+		// PSS variants need a provider with MGF1 support (e.g. BouncyCastle), leave them to jjwt
+		if (algorithm.isRsa() && algorithm.name().startsWith("RS") && key instanceof PublicKey) {
+			return new PublicKeyValidator(algorithm, (PublicKey) key);
+		}
+		if (algorithm.isEllipticCurve() && key instanceof ECPublicKey) {
+			return new EcValidator(algorithm, (PublicKey) key);
+		}
+		return null;
+	}
+
+	@Override
+	public boolean isValid(String jwtWithoutSignature, String base64UrlEncodedSignature) {
+		byte[] signature;
+		try {
+			signature = BASE64URL.decode(base64UrlEncodedSignature);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return isValid(jwtWithoutSignature.getBytes(StandardCharsets.US_ASCII), signature);
+	}
+
+	protected abstract boolean isValid(byte[] data, byte[] signature);
+
+	static class MacValidator extends PooledSignatureValidator {
+
+		private final EnginePool<Mac> macs;
+
+		MacValidator(SignatureAlgorithm algorithm, SecretKey key) {
+			this.macs = new EnginePool<>(() -> {
+				try {
+					Mac instance = Mac.getInstance(algorithm.getJcaName());
+					instance.init(key);
+					return instance;
+				} catch (GeneralSecurityException e) {
+					throw new IllegalArgumentException("Unable to initialize " + algorithm.getJcaName(), e);
+				}
+			});
+			// fail fast on a bad key rather than on the first request
+			macs.release(macs.acquire());
+		}
+
+		@Override
+		protected boolean isValid(byte[] data, byte[] signature) {
+			Mac mac = macs.acquire();
+			// doFinal resets the Mac so it is ready for the next token
+			boolean valid = MessageDigest.isEqual(mac.doFinal(data), signature);
+			macs.release(mac);
+			return valid;
+		}
+	}
+
+	static class PublicKeyValidator extends PooledSignatureValidator {
+
+		private final EnginePool<Signature> verifiers;
+
+		PublicKeyValidator(SignatureAlgorithm algorithm, PublicKey key) {
+			this.verifiers = new EnginePool<>(() -> {
+				try {
+					Signature instance = Signature.getInstance(algorithm.getJcaName());
+					instance.initVerify(key);
+					return instance;
+				} catch (GeneralSecurityException e) {
+					throw new IllegalArgumentException("Unable to initialize " + algorithm.getJcaName(), e);
+				}
+			});
+			verifiers.release(verifiers.acquire());
+		}
+
+		@Override
+		protected boolean isValid(byte[] data, byte[] signature) {
+			Signature instance = verifiers.acquire();
+			boolean valid;
+			try {
+				// verify resets the Signature to the state it was left by initVerify
+				instance.update(data);
+				valid = instance.verify(signature);
+			} catch (java.security.SignatureException e) {
+				// the instance may be left half way, we do not give it back
+				return false;
+			}
+			verifiers.release(instance);
+			return valid;
+		}
+	}
+
+	/**
+	 * Tokens carry the JOSE form of the signature, R || S, which we turn into the DER form the JDK verifies. Tokens
+	 * signed by jjwt 0.6 carry the DER form already, we accept those as they are. We tell the two apart by parsing:
+	 * only a canonical DER signature is taken as DER, only a signature of exactly the JOSE length as JOSE, anything
+	 * else is invalid.
+	 */
+	static class EcValidator extends PublicKeyValidator {
+
+		private final SignatureAlgorithm algorithm;
+		private final int joseLength;
+
+		EcValidator(SignatureAlgorithm algorithm, PublicKey key) {
+			super(algorithm, key);
+			this.algorithm = algorithm;
+			this.joseLength = EcdsaSignatures.joseLength(algorithm);
+		}
+
+		@Override
+		protected boolean isValid(byte[] data, byte[] signature) {
+			if (EcdsaSignatures.isDer(signature, algorithm)) {
+				return super.isValid(data, signature);
+			}
+			return signature.length == joseLength && super.isValid(data, EcdsaSignatures.joseToDer(signature));
+		}
+	}
+}
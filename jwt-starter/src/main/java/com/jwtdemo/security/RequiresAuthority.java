@@ -0,0 +1,21 @@
+package com.jwtdemo.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Same as <code>@PreAuthorize("hasAuthority('...')")</code> on a controller method (or on all the methods of a
+ * controller) except that the check is compiled once rather than evaluating a SpEL expression on every call. See
+ * {@link AuthorityCheckInterceptor}.
+ *
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresAuthority {
+
+	String value();
+}
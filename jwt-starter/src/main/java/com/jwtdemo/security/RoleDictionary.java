@@ -0,0 +1,82 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Role names known to issuers and validators alike, so that tokens can carry the index of a role rather than its name:
+ * <code>"roles":[0,5,"new.role"]</code> rather than <code>"roles":"ADMIN,resource.read,new.role"</code>. Roles missing
+ * from the dictionary are carried by name.
+ *
+ * Tokens outlive deployments, hence the dictionary is append-only: never remove or reorder its names. The index of a
+ * name is its line number, starting at 0, so blank and duplicate lines are rejected rather than skipped: skipping them
+ * would shift every following index.
+ *
+ * jwt-token-service has its own copy of this format (it does not depend on the starter), both must accept exactly the
+ * same files.
+ *
+ */
+public class RoleDictionary {
+
+	private final String[] names;
+
+	/**
+	 * @throws IllegalArgumentException for a blank or duplicate name, or one with a comma
+	 */
+	public RoleDictionary(List<String> names) {
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			if (name.trim().isEmpty() || name.indexOf(',') >= 0 || !name.equals(name.trim())) {
+				throw new IllegalArgumentException("Invalid role name \"" + name + "\" at index " + i);
+			}
+			if (!seen.add(name)) {
+				throw new IllegalArgumentException("Duplicate role name " + name + " at index " + i);
+			}
+		}
+		this.names = names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * One role per line, surrounding spaces are ignored
+	 *
+	 * @throws IllegalArgumentException for a blank or duplicate line
+	 */
+	public static RoleDictionary load(Path path) throws IOException {
+		return new RoleDictionary(Files.readAllLines(path, StandardCharsets.UTF_8).stream().map(String::trim)
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * @param roles indexes into the dictionary and role names
+	 * @return the comma separated role names, as a token without dictionary encoding would carry them
+	 * @throws IllegalArgumentException for an index which is not in the dictionary
+	 */
+	public String decode(List<?> roles) {
+		StringBuilder decoded = new StringBuilder(roles.size() * 16);
+		for (Object role : roles) {
+			if (decoded.length() > 0) {
+				decoded.append(',');
+			}
+			if (role instanceof String) {
+				decoded.append((String) role);
+			} else if ((role instanceof Integer || role instanceof Long) && ((Number) role).longValue() >= 0
+					&& ((Number) role).longValue() < names.length) {
+				decoded.append(names[((Number) role).intValue()]);
+			} else {
+				throw new IllegalArgumentException("Unknown role " + role);
+			}
+		}
+		return decoded.toString();
+	}
+
+	public int size() {
+		return names.length;
+	}
+}
@@ -1,15 +1,15 @@
 package com.jwtdemo.security;
 
-import java.io.UnsupportedEncodingException;
-import java.security.Key;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.Arrays;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,6 +32,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
  * 
  */
 @Configuration
+@ConditionalOnClass(name = { "javax.servlet.Filter", "org.springframework.web.servlet.DispatcherServlet" })
 @EnableGlobalMethodSecurity(prePostEnabled = true) // only required if we are
 													// going to do role-based
 													// authentication
@@ -40,6 +41,12 @@ class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
 	@Autowired
 	JWTConfiguration jwtConfiguration;
+
+	@Autowired
+	AuthorityRegistry authorityRegistry;
+
+	@Autowired(required = false)
+	JwtMetrics jwtMetrics;
 	
 	AuthenticationEntryPoint handleUnauthenticatedUsers() {
 		return (HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) -> {
@@ -53,10 +60,15 @@ class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 		};
 	}
 
-	AuthenticationProvider jwtBasedAuthentication() throws UnsupportedEncodingException, NoSuchAlgorithmException, InvalidKeySpecException {
-		Key key = JwtTokenValidator.buildKey(jwtConfiguration.getKey(), jwtConfiguration.getKeyAlgorithm());
-		return new JwtAuthenticationProvider(new JwtTokenValidator(key, jwtConfiguration.getRequireAudience(), 
-				jwtConfiguration.getRoleClaimName()));
+	@Bean
+	public JwtTokenValidator jwtTokenValidator() throws IOException, GeneralSecurityException {
+		JwtTokenValidator validator = JwtTokenValidators.create(jwtConfiguration, authorityRegistry);
+		validator.setMetrics(jwtMetrics);
+		return validator;
+	}
+
+	AuthenticationProvider jwtBasedAuthentication() throws IOException, GeneralSecurityException {
+		return new JwtAuthenticationProvider(jwtTokenValidator());
 	}
 
 	@Bean
@@ -70,9 +82,21 @@ class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 		JwtAuthenticationTokenFilter authenticationTokenFilter = new JwtAuthenticationTokenFilter(jwtConfiguration.getTokenHeader());
 		authenticationTokenFilter.setAuthenticationManager(authenticationManager());
 		authenticationTokenFilter.setAuthenticationSuccessHandler(handleAuthenticatedUsers());
+		authenticationTokenFilter.setMetrics(jwtMetrics);
 		return authenticationTokenFilter;
 	}
 
+	/**
+	 * The authentication filter belongs to the security filter chain only, we do not want the servlet container to
+	 * run it a second time
+	 */
+	@Bean
+	public FilterRegistrationBean authenticationTokenFilterRegistration(JwtAuthenticationTokenFilter filter) {
+		FilterRegistrationBean registration = new FilterRegistrationBean(filter);
+		registration.setEnabled(false);
+		return registration;
+	}
+
 	@Override
 	protected void configure(HttpSecurity httpSecurity) throws Exception {
 		httpSecurity
@@ -91,7 +115,14 @@ class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
  
 	private void enableJWTBasedAuthentication(HttpSecurity httpSecurity) throws Exception {
-		httpSecurity.addFilterBefore(authenticationTokenFilterBean(), UsernamePasswordAuthenticationFilter.class);
+		if (jwtConfiguration.isLightweightFilter()) {
+			LightweightJwtAuthenticationFilter filter = new LightweightJwtAuthenticationFilter(jwtConfiguration.getTokenHeader(), 
+					jwtTokenValidator(), handleUnauthenticatedUsers());
+			filter.setMetrics(jwtMetrics);
+			httpSecurity.addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);
+		} else {
+			httpSecurity.addFilterBefore(authenticationTokenFilterBean(), UsernamePasswordAuthenticationFilter.class);
+		}
 	}
 
 	private void disablePageCaching(HttpSecurity httpSecurity) throws Exception {
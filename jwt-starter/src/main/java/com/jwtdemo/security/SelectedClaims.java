@@ -0,0 +1,132 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+/**
+ * Immutable view of a JSON object (JWT header or claims) where only a handful of selected members are extracted
+ * up-front, in a single streaming pass which skips over everything else. Any other member is only available once
+ * somebody asks for it, at which point the whole JSON is parsed.
+ *
+ * Tokens carrying large custom claims we never look at are then much cheaper to validate.
+ *
+ */
+final class SelectedClaims extends AbstractMap<String, Object> {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+	private static final Object ABSENT = new Object();
+
+	private final Selector selector;
+	private final Object[] values;
+	private final String json;
+	private volatile Map<String, Object> all;
+
+	private SelectedClaims(Selector selector, Object[] values, String json) {
+		this.selector = selector;
+		this.values = values;
+		this.json = json;
+	}
+
+	@Override
+	public Object get(Object key) {
+		Integer i = selector.index.get(key);
+		if (i == null) {
+			return all().get(key);
+		}
+		Object value = values[i];
+		return value == ABSENT ? null : value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		Integer i = selector.index.get(key);
+		return i == null ? all().containsKey(key) : values[i] != ABSENT;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return all().entrySet();
+	}
+
+	private Map<String, Object> all() {
+		Map<String, Object> map = all;
+		if (map == null) {
+			try {
+				map = Collections.unmodifiableMap(MAPPER.<Map<String, Object>> readValue(json, MAP_TYPE));
+			} catch (IOException e) {
+				throw new MalformedJwtException("Unable to read JSON value: " + json, e);
+			}
+			all = map;
+		}
+		return map;
+	}
+
+	/**
+	 * Extracts a fixed set of members. Thread-safe.
+	 */
+	static final class Selector {
+
+		private final Map<String, Integer> index = new HashMap<>();
+
+		Selector(Collection<String> names) {
+			names.forEach(name -> index.putIfAbsent(name, index.size()));
+		}
+
+		SelectedClaims read(String json) throws IOException {
+			Object[] values = new Object[index.size()];
+			Arrays.fill(values, ABSENT);
+
+			try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new MalformedJwtException("JWT header and claims must be JSON objects");
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					Integer i = index.get(parser.getCurrentName());
+					JsonToken token = parser.nextToken();
+					if (i == null) {
+						parser.skipChildren();
+					} else {
+						values[i] = value(parser, token);
+					}
+				}
+				if (parser.getCurrentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+					throw new MalformedJwtException("Unexpected content after the JSON object");
+				}
+			}
+			return new SelectedClaims(this, values, json);
+		}
+
+		private static Object value(JsonParser parser, JsonToken token) throws IOException {
+			switch (token) {
+			case VALUE_STRING:
+				return parser.getText();
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				return parser.getNumberValue();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case VALUE_NULL:
+				return null;
+			default:
+				return MAPPER.readValue(parser, Object.class);
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.jwtdemo.security;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Phases of the current request for its <b>Server-Timing</b> response header: <code>auth</code> (token validation),
+ * <code>authz</code> (<code>@RequiresAuthority</code> and <code>@PreAuthorize</code> checks), <code>handler</code>
+ * (everything else until the response is committed) and <code>total</code>. The timings of the services we call are
+ * folded in with their client name as prefix, plus <code>{client}</code> for the whole call and
+ * <code>{client}.net</code> for the part of it the downstream service did not account for.
+ *
+ * Set up by {@link ServerTimingFilter} when <code>jwt.serverTiming</code> is true, otherwise {@link #current()} is
+ * null and recording does nothing. With <code>jwt.serverTimingTotalOnly</code>, callers get {@link #totalHeader()}
+ * unless their address is one of <code>jwt.serverTimingTrustedAddresses</code>.
+ *
+ */
+public final class ServerTiming {
+
+	public static final String HEADER = "Server-Timing";
+	public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+	private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+	private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+	private final String requestId;
+	private final long start = System.nanoTime();
+	// only the request thread records local phases, downstream calls may come from other threads
+	private final StringBuilder local = new StringBuilder();
+	private long localNanos;
+	private final Queue<String> downstream = new ConcurrentLinkedQueue<>();
+
+	ServerTiming(String requestId) {
+		this.requestId = requestId;
+	}
+
+	/**
+	 * @return the timing of the request handled by this thread or null
+	 */
+	public static ServerTiming current() {
+		return CURRENT.get();
+	}
+
+	static void set(ServerTiming timing) {
+		if (timing == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(timing);
+		}
+	}
+
+	/**
+	 * Runs <code>supplier</code> with the timing of the calling thread, for calls made on other threads on behalf of
+	 * the current request
+	 */
+	public static <T> Supplier<T> propagate(Supplier<T> supplier) {
+		ServerTiming timing = current();
+		if (timing == null) {
+			return supplier;
+		}
+		return () -> {
+			ServerTiming previous = current();
+			set(timing);
+			try {
+				return supplier.get();
+			} finally {
+				set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Correlation id, the caller's <b>X-Request-Id</b> or one of our own
+	 */
+	public String getRequestId() {
+		return requestId;
+	}
+
+	/**
+	 * Add the local phase <code>name</code> which took since <code>startNanos</code>
+	 */
+	public void record(String name, long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		localNanos += nanos;
+		append(local, name, nanos);
+	}
+
+	/**
+	 * Add a call to the service <code>client</code> which took <code>nanos</code>, with the entries of the
+	 * <b>Server-Timing</b> header it returned, if any
+	 */
+	public void recordDownstream(String client, long nanos, String serverTiming) {
+		StringBuilder entries = new StringBuilder();
+		append(entries, client, nanos);
+		double downstreamTotal = -1;
+		if (StringUtils.hasText(serverTiming)) {
+			for (String entry : serverTiming.split(",")) {
+				String[] params = entry.trim().split(";");
+				String name = params[0].trim();
+				String duration = null;
+				for (int i = 1; i < params.length; i++) {
+					String param = params[i].trim();
+					if (param.startsWith("dur=")) {
+						duration = param.substring(4);
+					}
+				}
+				if (name.isEmpty() || duration == null) {
+					continue;
+				}
+				if ("total".equals(name)) {
+					try {
+						downstreamTotal = Double.parseDouble(duration);
+					} catch (NumberFormatException e) {
+						continue;
+					}
+				}
+				entries.append(", ").append(client).append('.').append(name).append(";dur=").append(duration);
+			}
+		}
+		if (downstreamTotal >= 0) {
+			append(entries, client + ".net", Math.max(0, nanos - (long) (downstreamTotal * 1_000_000)));
+		}
+		downstream.add(entries.toString());
+	}
+
+	/**
+	 * @return the value of the <b>Server-Timing</b> header as of now
+	 */
+	public String header() {
+		long total = System.nanoTime() - start;
+		StringBuilder header = new StringBuilder(local);
+		append(header, "handler", Math.max(0, total - localNanos));
+		append(header, "total", total);
+		for (String entries : downstream) {
+			header.append(", ").append(entries);
+		}
+		return header.toString();
+	}
+
+	/**
+	 * @return the value of the <b>Server-Timing</b> header as of now with <code>total</code> only
+	 */
+	public String totalHeader() {
+		StringBuilder header = new StringBuilder();
+		append(header, "total", System.nanoTime() - start);
+		return header.toString();
+	}
+
+	private static void append(StringBuilder entries, String name, long nanos) {
+		if (entries.length() > 0) {
+			entries.append(", ");
+		}
+		// milliseconds with microseconds precision
+		entries.append(name).append(";dur=").append(nanos / 1000 / 1000.0);
+	}
+
+	/**
+	 * @return <code>requestId</code> if it is safe to send back and forward, otherwise a new random one
+	 */
+	static String requestIdOrNew(String requestId) {
+		if (requestId != null && !requestId.isEmpty() && requestId.length() <= MAX_REQUEST_ID_LENGTH) {
+			boolean safe = true;
+			for (int i = 0; i < requestId.length() && safe; i++) {
+				char c = requestId.charAt(i);
+				safe = Character.isLetterOrDigit(c) && c < 128 || c == '-' || c == '_' || c == '.';
+			}
+			if (safe) {
+				return requestId;
+			}
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+	}
+}
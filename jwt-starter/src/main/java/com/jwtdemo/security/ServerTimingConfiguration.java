@@ -0,0 +1,99 @@
+package com.jwtdemo.security;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.intercept.aopalliance.MethodSecurityInterceptor;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Adds a <b>Server-Timing</b> header to every response when <code>jwt.serverTiming</code> is true, see
+ * {@link ServerTiming}. Applications add a {@link ServerTimingPropagator} to their RestTemplates to fold in the
+ * timings of the services they call. Services exposed to the outside set <code>jwt.serverTimingTotalOnly</code>.
+ *
+ */
+@Configuration
+@ConditionalOnClass(name = { "javax.servlet.Filter", "org.springframework.web.servlet.DispatcherServlet" })
+@ConditionalOnProperty(prefix = "jwt", name = "serverTiming", havingValue = "true")
+class ServerTimingConfiguration {
+
+	@Autowired
+	JWTConfiguration jwtConfiguration;
+
+	/**
+	 * Ahead of the security filter chain, so <code>auth</code> is part of the request
+	 */
+	@Bean
+	public FilterRegistrationBean serverTimingFilterRegistration() {
+		FilterRegistrationBean registration = new FilterRegistrationBean(new ServerTimingFilter(
+				jwtConfiguration.isServerTimingTotalOnly(), jwtConfiguration.getServerTimingTrustedAddresses()));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	/**
+	 * <code>@PreAuthorize</code> checks count as <code>authz</code>
+	 */
+	@Bean
+	public static BeanPostProcessor timedMethodSecurity() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof MethodSecurityInterceptor) {
+					MethodSecurityInterceptor interceptor = (MethodSecurityInterceptor) bean;
+					interceptor.setAccessDecisionManager(new TimedAccessDecisionManager(interceptor.getAccessDecisionManager()));
+				}
+				return bean;
+			}
+		};
+	}
+
+	static class TimedAccessDecisionManager implements AccessDecisionManager {
+
+		private final AccessDecisionManager delegate;
+
+		TimedAccessDecisionManager(AccessDecisionManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void decide(Authentication authentication, Object object, Collection<ConfigAttribute> configAttributes) {
+			ServerTiming timing = ServerTiming.current();
+			if (timing == null) {
+				delegate.decide(authentication, object, configAttributes);
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				delegate.decide(authentication, object, configAttributes);
+			} finally {
+				timing.record("authz", start);
+			}
+		}
+
+		@Override
+		public boolean supports(ConfigAttribute attribute) {
+			return delegate.supports(attribute);
+		}
+
+		@Override
+		public boolean supports(Class<?> clazz) {
+			return delegate.supports(clazz);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.MDC;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Times each request with a {@link ServerTiming} and adds its <b>Server-Timing</b> header right before the response
+ * is committed, so bodies are neither buffered nor delayed. Takes the caller's <b>X-Request-Id</b> as correlation id,
+ * or makes up one, and returns it. The id is also in the logging MDC as <code>requestId</code>.
+ *
+ * It must run before the security filter chain to see the authentication.
+ *
+ * With <code>totalOnly</code>, the header only has <code>total</code>, unless the request comes from one of the
+ * <code>trustedAddresses</code>. The addresses are compared with the remote address of the connection, not with
+ * <b>X-Forwarded-For</b>, which callers can set.
+ *
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+	static final String MDC_KEY = "requestId";
+
+	private final boolean totalOnly;
+	private final Set<String> trustedAddresses;
+
+	public ServerTimingFilter() {
+		this(false, Collections.emptySet());
+	}
+
+	public ServerTimingFilter(boolean totalOnly, Collection<String> trustedAddresses) {
+		this.totalOnly = totalOnly;
+		this.trustedAddresses = new HashSet<>(trustedAddresses);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ServerTiming timing = new ServerTiming(ServerTiming.requestIdOrNew(request.getHeader(ServerTiming.REQUEST_ID_HEADER)));
+		response.setHeader(ServerTiming.REQUEST_ID_HEADER, timing.getRequestId());
+		boolean detailed = !totalOnly || trustedAddresses.contains(request.getRemoteAddr());
+		ServerTimingResponse timedResponse = new ServerTimingResponse(response, timing, detailed);
+
+		ServerTiming.set(timing);
+		MDC.put(MDC_KEY, timing.getRequestId());
+		try {
+			chain.doFilter(request, timedResponse);
+		} finally {
+			ServerTiming.set(null);
+			MDC.remove(MDC_KEY);
+			if (!response.isCommitted()) {
+				timedResponse.onResponseCommitted();
+			}
+		}
+	}
+
+	static class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+		private final ServerTiming timing;
+		private final boolean detailed;
+		private boolean written;
+
+		ServerTimingResponse(HttpServletResponse response, ServerTiming timing, boolean detailed) {
+			super(response);
+			this.timing = timing;
+			this.detailed = detailed;
+		}
+
+		@Override
+		protected void onResponseCommitted() {
+			if (!written) {
+				written = true;
+				((HttpServletResponse) getResponse()).setHeader(ServerTiming.HEADER,
+						detailed ? timing.header() : timing.totalHeader());
+			}
+		}
+	}
+}
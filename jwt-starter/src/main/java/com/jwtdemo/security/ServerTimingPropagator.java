@@ -0,0 +1,44 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Forwards the <b>X-Request-Id</b> of the current request and folds the <b>Server-Timing</b> of the service
+ * <code>client</code> into ours, see {@link ServerTiming#recordDownstream(String, long, String)}. Does nothing outside
+ * of requests timed by {@link ServerTimingFilter}.
+ *
+ * Add it after the interceptors setting the <b>Authorization</b> header so the token is not part of the call.
+ *
+ */
+public class ServerTimingPropagator implements ClientHttpRequestInterceptor {
+
+	private final String client;
+
+	public ServerTimingPropagator(String client) {
+		this.client = client;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		ServerTiming timing = ServerTiming.current();
+		if (timing == null) {
+			return execution.execute(request, body);
+		}
+		request.getHeaders().set(ServerTiming.REQUEST_ID_HEADER, timing.getRequestId());
+		long start = System.nanoTime();
+		ClientHttpResponse response = null;
+		try {
+			response = execution.execute(request, body);
+			return response;
+		} finally {
+			timing.recordDownstream(client, System.nanoTime() - start,
+					response == null ? null : response.getHeaders().getFirst(ServerTiming.HEADER));
+		}
+	}
+}
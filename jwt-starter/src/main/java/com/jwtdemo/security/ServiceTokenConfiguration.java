@@ -0,0 +1,53 @@
+package com.jwtdemo.security;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Keeps a fresh token for calling the service named by <code>jwt.serviceToken.audience</code>, minted locally with
+ * <code>jwt.serviceToken.signingKey</code>. Applications with another issuer declare their own
+ * {@link ServiceTokenManager}.
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jwt.serviceToken", name = "audience")
+class ServiceTokenConfiguration {
+
+	@Autowired
+	JWTConfiguration jwtConfiguration;
+
+	@Value("${spring.application.name:application}")
+	String applicationName;
+
+	@Bean
+	@ConditionalOnMissingBean
+	public ServiceTokenManager serviceTokenManager() throws GeneralSecurityException, UnsupportedEncodingException {
+		JWTConfiguration.ServiceToken serviceToken = jwtConfiguration.getServiceToken();
+		if (serviceToken.getSigningKey() == null) {
+			throw new IllegalStateException("jwt.serviceToken.signingKey must be configured");
+		}
+		SignatureAlgorithm algorithm = ServiceTokenSigner.algorithmFor(serviceToken.getSigningKey(), serviceToken.getAlgorithm());
+
+		ServiceTokenSigner signer = new ServiceTokenSigner(
+				ServiceTokenSigner.buildSigningKey(serviceToken.getSigningKey(), algorithm), algorithm,
+				serviceToken.getSubject() == null ? applicationName : serviceToken.getSubject(),
+				serviceToken.getAudience(), TimeUnit.SECONDS.toMillis(serviceToken.getTimeToLive()));
+		if (serviceToken.getRoles() != null) {
+			signer.setRoles(jwtConfiguration.getRoleClaimName(), serviceToken.getRoles());
+		}
+
+		ServiceTokenManager manager = new ServiceTokenManager(serviceToken.getAudience(), signer);
+		manager.setRefreshAhead(TimeUnit.SECONDS.toMillis(serviceToken.getRefreshAhead()));
+		return manager;
+	}
+}
@@ -0,0 +1,225 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Holds the application's own token for calling another service and renews it in the background before it expires.
+ *
+ * Requests only ever read the current token, they never wait for a new one unless the current one has already
+ * expired (e.g. the issuer has been failing for a while). There is at most one call to the issuer in flight: anyone
+ * who needs a new token while it is being fetched waits for that same fetch. Failed refreshes are retried with an
+ * exponential backoff while we keep using the token we have. Requests needing a token during the backoff fail
+ * straight away rather than calling the issuer themselves.
+ *
+ */
+public class ServiceTokenManager implements Supplier<String>, InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(ServiceTokenManager.class);
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final String name;
+	private final Callable<String> issuer;
+	private final AtomicReference<CompletableFuture<ServiceToken>> inFlight = new AtomicReference<>();
+	private volatile ServiceToken current;
+	private volatile Failure failure;
+	private ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> next; // only used by the scheduler's thread
+
+	private long refreshAhead = 60000;
+	private long minRetryDelay = 1000;
+	private long maxRetryDelay = 30000;
+	private long timeout = 5000;
+	private long retryDelay;
+
+	/**
+	 * @param name used to name the refresh thread and in log messages, e.g. the audience
+	 * @param issuer obtains a new token, e.g. {@link ServiceTokenSigner} or a call to a token service
+	 */
+	public ServiceTokenManager(String name, Callable<String> issuer) {
+		this.name = name;
+		this.issuer = issuer;
+	}
+
+	/**
+	 * Renew tokens this many milliseconds before they expire, at most half way through their lifetime
+	 */
+	public void setRefreshAhead(long refreshAhead) {
+		this.refreshAhead = refreshAhead;
+	}
+
+	public void setMinRetryDelay(long minRetryDelay) {
+		this.minRetryDelay = minRetryDelay;
+	}
+
+	public void setMaxRetryDelay(long maxRetryDelay) {
+		this.maxRetryDelay = maxRetryDelay;
+	}
+
+	/**
+	 * How long {@link #getToken()} waits for a token when it has none which is still valid
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("service-token-" + name + "-"));
+		retryDelay = minRetryDelay;
+		try {
+			refresh().get(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			// we are retrying already, requests will wait for the token if it is not there yet
+			logger.warn("Unable to obtain the initial " + name + " token: " + e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Override
+	public String get() {
+		return getToken();
+	}
+
+	/**
+	 * @return a token which has not expired yet
+	 * @throws IllegalStateException if we could not obtain one within <code>timeout</code>
+	 */
+	public String getToken() {
+		long now = System.currentTimeMillis();
+		ServiceToken token = current;
+		if (token != null && !token.isExpired(now)) {
+			return token.value;
+		}
+		Failure lastFailure = failure;
+		if (lastFailure != null && now < lastFailure.retryAt && inFlight.get() == null) {
+			throw new IllegalStateException("Unable to obtain the " + name + " token, retrying in " +
+					(lastFailure.retryAt - now) + " ms", lastFailure.cause);
+		}
+		try {
+			return refresh().get(timeout, TimeUnit.MILLISECONDS).value;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the " + name + " token");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Unable to obtain the " + name + " token", e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Timed out waiting for the " + name + " token");
+		}
+	}
+
+	/**
+	 * Starts fetching a new token unless a fetch is in flight already, in which case we join it
+	 */
+	CompletableFuture<ServiceToken> refresh() {
+		CompletableFuture<ServiceToken> future = inFlight.get();
+		if (future != null) {
+			return future;
+		}
+		CompletableFuture<ServiceToken> ours = new CompletableFuture<>();
+		if (!inFlight.compareAndSet(null, ours)) {
+			return inFlight.get();
+		}
+		scheduler.execute(() -> fetch(ours));
+		return ours;
+	}
+
+	private void fetch(CompletableFuture<ServiceToken> future) {
+		try {
+			ServiceToken token = ServiceToken.of(issuer.call());
+			current = token;
+			failure = null;
+			retryDelay = minRetryDelay;
+			inFlight.set(null);
+			future.complete(token);
+			scheduleRefresh(token);
+		} catch (Exception e) {
+			logger.warn("Unable to obtain the " + name + " token, retrying in " + retryDelay + " ms: " + e);
+			// before clearing inFlight, so requests see the backoff rather than starting another fetch
+			failure = new Failure(e, System.currentTimeMillis() + retryDelay);
+			inFlight.set(null);
+			future.completeExceptionally(e);
+			schedule(retryDelay);
+			retryDelay = Math.min(retryDelay * 2, maxRetryDelay);
+		}
+	}
+
+	private void scheduleRefresh(ServiceToken token) {
+		if (token.expiresAt == Long.MAX_VALUE) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long ahead = Math.min(refreshAhead, (token.expiresAt - now) / 2);
+		schedule(Math.max(0, token.expiresAt - ahead - now));
+	}
+
+	private void schedule(long delay) {
+		if (next != null) {
+			next.cancel(false);
+		}
+		next = scheduler.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private static final class Failure {
+		final Exception cause;
+		final long retryAt;
+
+		Failure(Exception cause, long retryAt) {
+			this.cause = cause;
+			this.retryAt = retryAt;
+		}
+	}
+
+	static final class ServiceToken {
+		final String value;
+		final long expiresAt;
+
+		ServiceToken(String value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		/**
+		 * Reads the token's <code>exp</code>. We trust our issuer, the signature is checked by the service we call.
+		 */
+		static ServiceToken of(String token) throws IOException {
+			String[] parts = token.split("\\.");
+			if (parts.length < 2) {
+				throw new IOException("Issuer returned a malformed token");
+			}
+			JsonNode exp = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).path("exp");
+			return new ServiceToken(token, exp.isNumber() ? TimeUnit.SECONDS.toMillis(exp.asLong()) : Long.MAX_VALUE);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.jwtdemo.security;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultJwtParser;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+
+/**
+ * JwtParser meant to be configured once and then shared by all request threads.
+ *
+ * DefaultJwtParser only reads its configuration (key, resolver, expected claims, ObjectMapper) while parsing,
+ * so once it is configured it is safe to share (https://github.com/jwtk/jjwt/issues/171). On top of that, we keep one
+ * signature validator per (key, algorithm) with per-thread <code>Mac</code>/<code>Signature</code> instances instead
+ * of building them for every token.
+ *
+ */
+class SharedJwtParser extends DefaultJwtParser {
+
+	/**
+	 * Compressed payloads inflating beyond this many bytes are rejected unless told otherwise
+	 */
+	static final int DEFAULT_MAX_PAYLOAD_LENGTH = 65536;
+
+	private final Map<Key, Map<SignatureAlgorithm, JwtSignatureValidator>> validators = new ConcurrentHashMap<>();
+	private SelectedClaims.Selector selector;
+
+	SharedJwtParser() {
+		// jjwt's own codecs inflate without limit
+		setCompressionCodecResolver(new DeflateCodecResolver(DEFAULT_MAX_PAYLOAD_LENGTH));
+	}
+
+	/**
+	 * Only extract these header fields and claims up-front, see {@link SelectedClaims}. By default everything is
+	 * parsed into a map.
+	 */
+	void setSelectedClaims(Collection<String> names) {
+		this.selector = new SelectedClaims.Selector(names);
+	}
+
+	@Override
+	protected Map<String, Object> readValue(String json) {
+		if (selector == null) {
+			return super.readValue(json);
+		}
+		try {
+			return selector.read(json);
+		} catch (IOException e) {
+			throw new MalformedJwtException("Unable to read JSON value: " + json, e);
+		}
+	}
+
+	@Override
+	protected JwtSignatureValidator createSignatureValidator(SignatureAlgorithm algorithm, Key key) {
+		Map<SignatureAlgorithm, JwtSignatureValidator> byAlgorithm = validators.get(key);
+		if (byAlgorithm == null) {
+			byAlgorithm = validators.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+		}
+		JwtSignatureValidator validator = byAlgorithm.get(algorithm);
+		if (validator == null) {
+			validator = PooledSignatureValidator.of(algorithm, key);
+			if (validator == null) {
+				// not pooled (e.g. EC keys), jjwt also rejects algorithm/key mismatches here
+				return super.createSignatureValidator(algorithm, key);
+			}
+			byAlgorithm.putIfAbsent(algorithm, validator);
+		}
+		return validator;
+	}
+
+	/**
+	 * Drops the validators of keys we no longer accept, e.g. after a {@link KeyRing} reload
+	 */
+	void retainKeys(Collection<Key> keys) {
+		validators.keySet().retainAll(keys);
+	}
+}
@@ -0,0 +1,43 @@
+package com.jwtdemo.security;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Exchanges users' tokens for tokens downscoped to the service named by <code>jwt.tokenExchange.audience</code>, see
+ * {@link AuthorizationHeaderPropagator#AuthorizationHeaderPropagator(TokenExchanger)}
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jwt.tokenExchange", name = "audience")
+class TokenExchangeConfiguration {
+
+	@Autowired
+	JWTConfiguration jwtConfiguration;
+
+	@Bean
+	@ConditionalOnMissingBean
+	public TokenExchanger tokenExchanger() throws GeneralSecurityException, UnsupportedEncodingException {
+		JWTConfiguration.TokenExchange tokenExchange = jwtConfiguration.getTokenExchange();
+		if (tokenExchange.getSigningKey() == null) {
+			throw new IllegalStateException("jwt.tokenExchange.signingKey must be configured");
+		}
+		SignatureAlgorithm algorithm = ServiceTokenSigner.algorithmFor(tokenExchange.getSigningKey(), tokenExchange.getAlgorithm());
+
+		TokenExchanger exchanger = new TokenExchanger(ServiceTokenSigner.buildSigningKey(tokenExchange.getSigningKey(), algorithm),
+				algorithm, tokenExchange.getAudience(), tokenExchange.getRolePrefix(), tokenExchange.getMaxSize());
+		exchanger.setRoleClaimName(jwtConfiguration.getRoleClaimName());
+		exchanger.setTimeToLive(TimeUnit.SECONDS.toMillis(tokenExchange.getTimeToLive()));
+		exchanger.setRefreshMargin(TimeUnit.SECONDS.toMillis(tokenExchange.getRefreshMargin()));
+		return exchanger;
+	}
+}
@@ -0,0 +1,135 @@
+package com.jwtdemo.security;
+
+import java.security.Key;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Exchanges a user's token for a downscoped one to call another service: same subject, <code>aud</code> set to that
+ * service and only the roles meant for it (those starting with <code>rolePrefix</code>). The exchanged token never
+ * outlives the user's token.
+ *
+ * Signing costs far more than a lookup, hence exchanged tokens are cached per subject and authorities (there is one
+ * exchanger per audience) until <code>refreshMargin</code> before they expire. A user is then signed for once per
+ * session rather than on every call. When sessions of the same user overlap, the cache keeps the token expiring
+ * first, which all of them can send.
+ *
+ */
+public class TokenExchanger {
+
+	private final Key key;
+	private final SignatureAlgorithm algorithm;
+	private final String audience;
+	private final String rolePrefix;
+	private final BoundedExpiringCache<ExchangeKey, Exchanged> cache;
+	private String roleClaimName = "roles";
+	private long timeToLive = 300000;
+	private long refreshMargin = 30000;
+
+	public TokenExchanger(Key key, SignatureAlgorithm algorithm, String audience, String rolePrefix, int maxSize) {
+		this.key = key;
+		this.algorithm = algorithm;
+		this.audience = audience;
+		this.rolePrefix = rolePrefix;
+		this.cache = new BoundedExpiringCache<>(maxSize);
+	}
+
+	public void setRoleClaimName(String roleClaimName) {
+		this.roleClaimName = roleClaimName;
+	}
+
+	/**
+	 * Lifetime (milliseconds) of tokens exchanged for user tokens which do not expire
+	 */
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Exchange again when the cached token expires within this many milliseconds
+	 */
+	public void setRefreshMargin(long refreshMargin) {
+		this.refreshMargin = refreshMargin;
+	}
+
+	public String exchange(AuthenticatedUser user) {
+		long now = System.currentTimeMillis();
+		long userExpiresAt = user.getExpiration() == null ? Long.MAX_VALUE : user.getExpiration().getTime();
+		ExchangeKey cacheKey = new ExchangeKey(user.getUsername(), user.getAuthorities());
+
+		Exchanged exchanged = cache.get(cacheKey, now + refreshMargin);
+		// another session of the same user may have a token expiring earlier than the one we exchanged
+		if (exchanged != null && exchanged.expiresAt <= userExpiresAt) {
+			return exchanged.token;
+		}
+
+		long expiresAt = user.getExpiration() == null ? now + timeToLive : userExpiresAt;
+		String token = sign(user, now, expiresAt);
+		// we keep the token expiring first, which every session of the user can use
+		cache.put(cacheKey, new Exchanged(token, expiresAt), expiresAt);
+		return token;
+	}
+
+	private String sign(AuthenticatedUser user, long now, long expiresAt) {
+		JwtBuilder jwt = Jwts.builder()
+				.setSubject(user.getUsername())
+				.setAudience(audience)
+				.setIssuedAt(new Date(now))
+				.setExpiration(new Date(expiresAt));
+		String roles = user.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+				.filter(role -> role.startsWith(rolePrefix)).collect(Collectors.joining(","));
+		if (!roles.isEmpty()) {
+			jwt.claim(roleClaimName, roles);
+		}
+		String token = jwt.signWith(algorithm, key).compact();
+		return algorithm.isEllipticCurve() ? EcdsaSignatures.toJose(token, algorithm) : token;
+	}
+
+	public BoundedExpiringCache<?, ?> getCache() {
+		return cache;
+	}
+
+	private static final class ExchangeKey {
+		private final String subject;
+		private final Collection<? extends GrantedAuthority> authorities;
+		private final int hash;
+
+		ExchangeKey(String subject, Collection<? extends GrantedAuthority> authorities) {
+			this.subject = subject;
+			this.authorities = authorities;
+			this.hash = 31 * subject.hashCode() + authorities.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ExchangeKey)) {
+				return false;
+			}
+			ExchangeKey other = (ExchangeKey) obj;
+			return subject.equals(other.subject) && Objects.equals(authorities, other.authorities);
+		}
+	}
+
+	private static final class Exchanged {
+		final String token;
+		final long expiresAt;
+
+		Exchanged(String token, long expiresAt) {
+			this.token = token;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.jwtdemo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Cheap structural checks which reject junk tokens before we spend any time on JSON parsing or signature
+ * verification: size, 3 non-empty base64url segments and a header whose <code>alg</code> is one we can verify with
+ * our key. Rejections are preallocated {@link InvalidTokenException}s.
+ *
+ * Passing these checks says nothing about the token being valid, it still has to go through the full validation.
+ *
+ */
+public class TokenPreCheck {
+
+	private static final int MAX_HEADER_LENGTH = 1024;
+	private static final boolean[] BASE64URL = new boolean[128];
+
+	static {
+		for (char c = 'A'; c <= 'Z'; c++) {
+			BASE64URL[c] = true;
+		}
+		for (char c = 'a'; c <= 'z'; c++) {
+			BASE64URL[c] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			BASE64URL[c] = true;
+		}
+		BASE64URL['-'] = true;
+		BASE64URL['_'] = true;
+	}
+
+	private final int maxLength;
+	private volatile Set<String> allowedAlgorithms;
+
+	public TokenPreCheck(int maxLength, Set<String> allowedAlgorithms) {
+		this.maxLength = maxLength;
+		this.allowedAlgorithms = allowedAlgorithms;
+	}
+
+	public void check(String token) {
+		int length = token.length();
+		if (length == 0) {
+			throw InvalidTokenException.EMPTY;
+		}
+		if (length > maxLength) {
+			throw InvalidTokenException.TOO_LONG;
+		}
+
+		int firstDot = -1;
+		int secondDot = -1;
+		for (int i = 0; i < length; i++) {
+			char c = token.charAt(i);
+			if (c == '.') {
+				if (firstDot < 0) {
+					firstDot = i;
+				} else if (secondDot < 0) {
+					secondDot = i;
+				} else {
+					throw InvalidTokenException.MALFORMED;
+				}
+			} else if (c >= 128 || !BASE64URL[c]) {
+				throw InvalidTokenException.NOT_BASE64URL;
+			}
+		}
+		// we only accept signed tokens hence the signature must be there too
+		if (firstDot < 1 || secondDot < firstDot + 2 || secondDot == length - 1) {
+			throw InvalidTokenException.MALFORMED;
+		}
+		if (firstDot > MAX_HEADER_LENGTH) {
+			throw InvalidTokenException.BAD_HEADER;
+		}
+
+		String algorithm = algorithm(token.substring(0, firstDot));
+		if (algorithm == null) {
+			throw InvalidTokenException.BAD_HEADER;
+		}
+		if (!allowedAlgorithms.contains(algorithm)) {
+			throw InvalidTokenException.UNEXPECTED_ALGORITHM;
+		}
+	}
+
+	/**
+	 * Pulls the <code>alg</code> value out of the header without a full JSON parse
+	 */
+	private static String algorithm(String encodedHeader) {
+		String header;
+		try {
+			header = new String(Base64.getUrlDecoder().decode(encodedHeader), StandardCharsets.ISO_8859_1);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		int i = header.indexOf("\"alg\"");
+		if (i < 0) {
+			return null;
+		}
+		i = skipWhitespace(header, i + 5);
+		if (i >= header.length() || header.charAt(i) != ':') {
+			return null;
+		}
+		i = skipWhitespace(header, i + 1);
+		if (i >= header.length() || header.charAt(i) != '"') {
+			return null;
+		}
+		int end = header.indexOf('"', i + 1);
+		return end < 0 ? null : header.substring(i + 1, end);
+	}
+
+	private static int skipWhitespace(String s, int i) {
+		while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	public Set<String> getAllowedAlgorithms() {
+		return allowedAlgorithms;
+	}
+
+	public void setAllowedAlgorithms(Set<String> allowedAlgorithms) {
+		this.allowedAlgorithms = allowedAlgorithms;
+	}
+
+	/**
+	 * @return the signature algorithms which can be verified with <code>key</code>, or just <code>algorithm</code>
+	 *         when one is explicitly configured
+	 */
+	public static Set<String> algorithmsFor(Key key, String algorithm) {
+		if (algorithm != null) {
+			return Collections.singleton(algorithm);
+		}
+		if (key instanceof SecretKey) {
+			return names(SignatureAlgorithm.HS256, SignatureAlgorithm.HS384, SignatureAlgorithm.HS512);
+		}
+		if (key instanceof RSAPublicKey) {
+			return names(SignatureAlgorithm.RS256, SignatureAlgorithm.RS384, SignatureAlgorithm.RS512,
+					SignatureAlgorithm.PS256, SignatureAlgorithm.PS384, SignatureAlgorithm.PS512);
+		}
+		if (key instanceof ECPublicKey) {
+			// an EC key only verifies the algorithm of its own curve
+			return names(EcdsaSignatures.algorithmFor((ECPublicKey) key));
+		}
+		return Collections.emptySet();
+	}
+
+	/**
+	 * @return the signature algorithms which can be verified with any of <code>keys</code>
+	 */
+	public static Set<String> algorithmsFor(Collection<Key> keys, String algorithm) {
+		Set<String> names = new HashSet<>();
+		keys.forEach(key -> names.addAll(algorithmsFor(key, algorithm)));
+		return Collections.unmodifiableSet(names);
+	}
+
+	private static Set<String> names(SignatureAlgorithm... algorithms) {
+		Set<String> names = new HashSet<>();
+		Arrays.stream(algorithms).forEach(a -> names.add(a.getValue()));
+		return Collections.unmodifiableSet(names);
+	}
+}
@@ -0,0 +1,98 @@
+package com.jwtdemo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Remembers tokens which have already been successfully validated so that we do not pay the signature
+ * verification again each time a client presents the same token. Tokens are indexed by their SHA-256 digest
+ * and each entry lives until the token's <code>exp</code> at the latest. Tokens without <code>exp</code> are
+ * kept for <code>timeToLive</code> milliseconds.
+ *
+ */
+public class VerifiedTokenCache {
+
+	// shared by all threads rather than one per thread, see EnginePool
+	private static final EnginePool<MessageDigest> SHA256 = new EnginePool<>(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final BoundedExpiringCache<TokenDigest, AuthenticatedUser> cache;
+	private final long timeToLive;
+
+	public VerifiedTokenCache(int maxSize, long timeToLive) {
+		this.cache = new BoundedExpiringCache<>(maxSize);
+		this.timeToLive = timeToLive;
+	}
+
+	public AuthenticatedUser get(String token) {
+		return cache.get(digest(token), System.currentTimeMillis());
+	}
+
+	public void put(String token, AuthenticatedUser user) {
+		long now = System.currentTimeMillis();
+		long expiresAt = now + timeToLive;
+		Date expiration = user.getExpiration();
+		if (expiration != null && expiration.getTime() < expiresAt) {
+			expiresAt = expiration.getTime();
+		}
+		if (expiresAt > now) {
+			cache.put(digest(token), user, expiresAt);
+		}
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	public int size() {
+		return cache.size();
+	}
+
+	public long getHitCount() {
+		return cache.getHitCount();
+	}
+
+	public long getMissCount() {
+		return cache.getMissCount();
+	}
+
+	public long getEvictionCount() {
+		return cache.getEvictionCount();
+	}
+
+	private static TokenDigest digest(String token) {
+		MessageDigest sha256 = SHA256.acquire();
+		// digest resets the MessageDigest
+		TokenDigest digest = new TokenDigest(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+		SHA256.release(sha256);
+		return digest;
+	}
+
+	private static final class TokenDigest {
+		private final byte[] bytes;
+		private final int hash;
+
+		TokenDigest(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TokenDigest && Arrays.equals(bytes, ((TokenDigest) obj).bytes);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+public class AuthorityRegistryTest {
+
+	private final AuthorityRegistry registry = new AuthorityRegistry(2);
+
+	@Test
+	public void internsEachRoleValueOnce() {
+		assertThat(registry.authorities("ADMIN,USER")).isSameAs(registry.authorities("ADMIN,USER"));
+		assertThat(registry.check("ADMIN").isGranted(authentication("ADMIN,USER"))).isTrue();
+		assertThat(registry.check("resource.read").isGranted(authentication("ADMIN,USER"))).isFalse();
+	}
+
+	@Test
+	public void stopsGrowingTheDictionaryOnceFull() {
+		registry.authorities("ADMIN");
+		registry.authorities("USER");
+
+		for (int i = 0; i < 100; i++) {
+			registry.authorities("USER,role" + i);
+		}
+
+		assertThat(registry.dictionarySize()).isEqualTo(2);
+	}
+
+	@Test
+	public void checksNamesTheDictionaryDoesNotKnow() {
+		registry.authorities("ADMIN");
+		registry.authorities("USER");
+		AuthorityCheck check = registry.check("resource.read");
+
+		assertThat(check.isGranted(authentication("USER,resource.read"))).isTrue();
+		assertThat(check.isGranted(authentication("USER"))).isFalse();
+		assertThat(registry.check("USER").isGranted(authentication("USER,resource.read"))).isTrue();
+	}
+
+	private Authentication authentication(String roles) {
+		AuthoritySet authorities = registry.authorities(roles);
+		AuthenticatedUser user = new AuthenticatedUser("bob", "token", authorities, null, Collections.emptyMap());
+		return new UsernamePasswordAuthenticationToken(user, null, authorities);
+	}
+}
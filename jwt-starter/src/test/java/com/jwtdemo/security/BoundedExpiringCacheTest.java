@@ -0,0 +1,72 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class BoundedExpiringCacheTest {
+
+	private static final long NOW = 1000;
+
+	@Test
+	public void returnsValuesUntilTheyExpire() {
+		BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10);
+		cache.put("a", "A", NOW + 10);
+
+		assertThat(cache.get("a", NOW)).isEqualTo("A");
+		assertThat(cache.get("a", NOW + 10)).isNull();
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictsInInsertionOrderWhateverIsRead() {
+		BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(2);
+		cache.put("a", "A", NOW + 10);
+		cache.put("b", "B", NOW + 10);
+		// reading a does not keep it, this is not an LRU cache
+		cache.get("a", NOW);
+
+		cache.put("c", "C", NOW + 10);
+
+		assertThat(cache.get("a", NOW)).isNull();
+		assertThat(cache.get("b", NOW)).isEqualTo("B");
+		assertThat(cache.get("c", NOW)).isEqualTo("C");
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void clearEmptiesTheInsertionOrderToo() {
+		BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(2);
+		cache.put("a", "A", NOW + 10);
+		cache.put("b", "B", NOW + 10);
+
+		cache.clear();
+		cache.put("c", "C", NOW + 10);
+		cache.put("d", "D", NOW + 10);
+
+		// both fit: the cleared entries no longer count against maxSize
+		assertThat(cache.get("c", NOW)).isEqualTo("C");
+		assertThat(cache.get("d", NOW)).isEqualTo("D");
+		assertThat(cache.getEvictionCount()).isZero();
+	}
+
+	@Test
+	public void aReplacedValueIsNotEvictedWithTheOldOne() {
+		BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(2);
+		cache.put("a", "A1", NOW + 10);
+		cache.put("a", "A2", NOW + 10);
+
+		cache.put("b", "B", NOW + 10);
+
+		assertThat(cache.get("a", NOW)).isEqualTo("A2");
+		assertThat(cache.get("b", NOW)).isEqualTo("B");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnEmptyBound() {
+		new BoundedExpiringCache<String, String>(0);
+	}
+}
@@ -0,0 +1,88 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import io.jsonwebtoken.CompressionException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jwts;
+
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class DeflateCodecResolverTest {
+
+	private static final byte[] PAYLOAD = "{\"sub\":\"bob\",\"roles\":\"ADMIN,resource.read,resource.write\"}"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final DeflateCodecResolver resolver = new DeflateCodecResolver(1024);
+
+	@Test
+	public void inflatesRawDeflate() {
+		assertThat(resolver.decompress(deflate(PAYLOAD, true))).isEqualTo(PAYLOAD);
+	}
+
+	@Test
+	public void inflatesZlibAsJjwtProducesIt() {
+		assertThat(resolver.decompress(deflate(PAYLOAD, false))).isEqualTo(PAYLOAD);
+	}
+
+	@Test
+	public void inflatesBelowTheMaximumLength() {
+		byte[] payload = new byte[1000];
+		Arrays.fill(payload, (byte) 'a');
+
+		assertThat(resolver.decompress(deflate(payload, true))).isEqualTo(payload);
+	}
+
+	@Test(expected = CompressionException.class)
+	public void givesUpBeyondTheMaximumLength() {
+		resolver.decompress(deflate(new byte[1025], true));
+	}
+
+	@Test(expected = CompressionException.class)
+	public void givesUpOnABombLongBeforeInflatingIt() {
+		resolver.decompress(deflate(new byte[10 * 1024 * 1024], true));
+	}
+
+	@Test(expected = CompressionException.class)
+	public void rejectsTruncatedPayloads() {
+		byte[] compressed = deflate(PAYLOAD, true);
+		resolver.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+	}
+
+	@Test
+	public void resolvesZipAndCalgHeaders() {
+		Header zip = Jwts.header();
+		zip.put("zip", "DEF");
+		Header calg = Jwts.header().setCompressionAlgorithm("DEF");
+
+		assertThat(resolver.resolveCompressionCodec(zip)).isSameAs(resolver);
+		assertThat(resolver.resolveCompressionCodec(calg)).isSameAs(resolver);
+		assertThat(resolver.resolveCompressionCodec(Jwts.header())).isNull();
+	}
+
+	@Test(expected = CompressionException.class)
+	public void rejectsOtherAlgorithms() {
+		Header header = Jwts.header();
+		header.put("zip", "GZIP");
+		resolver.resolveCompressionCodec(header);
+	}
+
+	private static byte[] deflate(byte[] payload, boolean raw) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, raw);
+		deflater.setInput(payload);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,92 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class EcdsaSignaturesTest {
+
+	@Test
+	public void convertsDerToJoseAndBack() throws Exception {
+		convertsDerToJoseAndBack(SignatureAlgorithm.ES256, 256);
+		convertsDerToJoseAndBack(SignatureAlgorithm.ES384, 384);
+		convertsDerToJoseAndBack(SignatureAlgorithm.ES512, 521);
+	}
+
+	private static void convertsDerToJoseAndBack(SignatureAlgorithm algorithm, int bits) throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(bits);
+		KeyPair keyPair = generator.generateKeyPair();
+		Signature signer = Signature.getInstance(algorithm.getJcaName());
+		signer.initSign(keyPair.getPrivate());
+		// enough signatures to get R or S with leading zeros
+		for (int i = 0; i < 200; i++) {
+			signer.update(("token " + i).getBytes(StandardCharsets.UTF_8));
+			byte[] der = signer.sign();
+
+			byte[] jose = EcdsaSignatures.derToJose(der, EcdsaSignatures.joseLength(algorithm));
+
+			assertThat(jose).hasSize(EcdsaSignatures.joseLength(algorithm));
+			assertThat(EcdsaSignatures.joseToDer(jose)).isEqualTo(der);
+			assertThat(EcdsaSignatures.isDer(der, algorithm)).isTrue();
+			assertThat(EcdsaSignatures.isDer(jose, algorithm)).isFalse();
+		}
+	}
+
+	@Test
+	public void tellsDerFromJoseByParsingRatherThanByLength() {
+		// R and S of 29 bytes: a 64-byte DER signature, as long as the JOSE form of an ES256 signature
+		byte[] r = new byte[29];
+		byte[] s = new byte[29];
+		Arrays.fill(r, (byte) 0x11);
+		Arrays.fill(s, (byte) 0x22);
+		byte[] jose = new byte[64];
+		System.arraycopy(r, 0, jose, 3, 29);
+		System.arraycopy(s, 0, jose, 35, 29);
+
+		byte[] der = EcdsaSignatures.joseToDer(jose);
+
+		assertThat(der).hasSize(64);
+		assertThat(EcdsaSignatures.isDer(der, SignatureAlgorithm.ES256)).isTrue();
+		assertThat(EcdsaSignatures.derToJose(der, 64)).isEqualTo(jose);
+	}
+
+	@Test
+	public void onlyTakesCanonicalDer() {
+		byte[] jose = new byte[64];
+		Arrays.fill(jose, (byte) 0x11);
+		byte[] der = EcdsaSignatures.joseToDer(jose);
+
+		// a needless leading zero in R
+		byte[] padded = new byte[der.length + 1];
+		padded[0] = 0x30;
+		padded[1] = (byte) (der[1] + 1);
+		padded[2] = 0x02;
+		padded[3] = (byte) (der[3] + 1);
+		System.arraycopy(der, 4, padded, 5, der.length - 4);
+		assertThat(EcdsaSignatures.isDer(padded, SignatureAlgorithm.ES256)).isFalse();
+
+		// trailing bytes
+		assertThat(EcdsaSignatures.isDer(Arrays.copyOf(der, der.length + 1), SignatureAlgorithm.ES256)).isFalse();
+
+		// a negative S
+		byte[] negative = der.clone();
+		negative[negative.length - 32] = (byte) 0x80;
+		assertThat(EcdsaSignatures.isDer(negative, SignatureAlgorithm.ES256)).isFalse();
+
+		assertThat(EcdsaSignatures.isDer(der, SignatureAlgorithm.ES256)).isTrue();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsGarbage() {
+		EcdsaSignatures.derToJose(new byte[70], 64);
+	}
+}
@@ -0,0 +1,120 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KeyRingTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final KeyPair RSA = generate("RSA", 2048);
+	private static final KeyPair EC = generate("EC", 256);
+
+	@Test
+	public void loadsPublicKeysWhateverTheirLineEndings() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "rsa", pem("PUBLIC KEY", RSA.getPublic().getEncoded(), "\n"));
+		write(directory, "ec", pem("PUBLIC KEY", EC.getPublic().getEncoded(), "\r\n"));
+
+		KeyRing keyRing = new KeyRing(directory, null);
+
+		assertThat(keyRing.getKeyIds()).containsOnly("rsa", "ec");
+		assertThat(keyRing.get("rsa")).isInstanceOf(PublicKey.class).isEqualTo(RSA.getPublic());
+		assertThat(keyRing.get("ec")).isInstanceOf(PublicKey.class).isEqualTo(EC.getPublic());
+		assertThat(keyRing.get("unknown")).isNull();
+	}
+
+	@Test(expected = InvalidKeySpecException.class)
+	public void rejectsPrivateKeys() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "private", pem("PRIVATE KEY", RSA.getPrivate().getEncoded(), "\n"));
+
+		new KeyRing(directory, null);
+	}
+
+	@Test(expected = InvalidKeySpecException.class)
+	public void rejectsAnythingButPem() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "secret", "trdFmDVIKGhC8wR7be36Jyve3lqQRLTI");
+
+		new KeyRing(directory, null);
+	}
+
+	@Test
+	public void keepsItsKeysWhenAReloadFails() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "rsa", pem("PUBLIC KEY", RSA.getPublic().getEncoded(), "\n"));
+		KeyRing keyRing = new KeyRing(directory, null);
+		int[] reloads = new int[1];
+		keyRing.addListener(() -> reloads[0]++);
+
+		write(directory, "certificate", pem("CERTIFICATE", RSA.getPublic().getEncoded(), "\n"));
+		keyRing.reload();
+
+		assertThat(keyRing.getKeyIds()).containsOnly("rsa");
+		assertThat(reloads[0]).isZero();
+	}
+
+	@Test
+	public void reloadsRotatedKeys() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "rsa", pem("PUBLIC KEY", RSA.getPublic().getEncoded(), "\n"));
+		KeyRing keyRing = new KeyRing(directory, null);
+
+		write(directory, "ec", pem("PUBLIC KEY", EC.getPublic().getEncoded(), "\n"));
+		Files.delete(directory.resolve("rsa.pem"));
+		keyRing.reload();
+
+		assertThat(keyRing.getKeyIds()).containsOnly("ec");
+	}
+
+	@Test
+	public void closeStopsTheWatcher() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		write(directory, "rsa", pem("PUBLIC KEY", RSA.getPublic().getEncoded(), "\n"));
+		KeyRing keyRing = new KeyRing(directory, null);
+		keyRing.watch();
+
+		keyRing.destroy();
+
+		assertThat(Thread.getAllStackTraces().keySet()).extracting(Thread::getName).doesNotContain("jwt-keyring-watcher");
+	}
+
+	@Test(expected = InvalidKeySpecException.class)
+	public void buildKeyNeverTakesAPemForASecret() throws Exception {
+		JwtTokenValidator.buildKey(pem("PRIVATE KEY", RSA.getPrivate().getEncoded(), "\n"), null);
+	}
+
+	static String pem(String type, byte[] encoded, String lineSeparator) {
+		String base64 = Base64.getMimeEncoder(64, lineSeparator.getBytes(StandardCharsets.US_ASCII)).encodeToString(encoded);
+		return "-----BEGIN " + type + "-----" + lineSeparator + base64 + lineSeparator + "-----END " + type + "-----"
+				+ lineSeparator;
+	}
+
+	private static void write(Path directory, String kid, String content) throws Exception {
+		Files.write(directory.resolve(kid + ".pem"), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static KeyPair generate(String algorithm, int size) {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+			generator.initialize(size);
+			return generator.generateKeyPair();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
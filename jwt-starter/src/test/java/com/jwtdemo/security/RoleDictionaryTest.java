@@ -0,0 +1,58 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RoleDictionaryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void indexesNamesByTheirLine() throws Exception {
+		RoleDictionary dictionary = RoleDictionary.load(write("ADMIN\n resource.read \r\nresource.write\n"));
+
+		assertThat(dictionary.size()).isEqualTo(3);
+		assertThat(dictionary.decode(Arrays.asList(0, 1L, 2, "new.role"))).isEqualTo(
+				"ADMIN,resource.read,resource.write,new.role");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBlankLines() throws Exception {
+		RoleDictionary.load(write("ADMIN\n\nresource.read\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDuplicateLines() throws Exception {
+		RoleDictionary.load(write("ADMIN\nresource.read\nADMIN\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNamesWithACommaAsTheyCouldNotBeEncoded() {
+		new RoleDictionary(Arrays.asList("ADMIN", "resource.read,resource.write"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsIndexesOutsideTheDictionary() {
+		new RoleDictionary(Arrays.asList("ADMIN")).decode(Arrays.asList(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeIndexes() {
+		new RoleDictionary(Arrays.asList("ADMIN")).decode(Arrays.asList(-1));
+	}
+
+	private Path write(String content) throws Exception {
+		Path path = folder.newFile().toPath();
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path;
+	}
+}
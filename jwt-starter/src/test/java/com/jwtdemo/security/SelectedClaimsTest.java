@@ -0,0 +1,56 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+public class SelectedClaimsTest {
+
+	private final SelectedClaims.Selector selector = new SelectedClaims.Selector(
+			Arrays.asList("sub", "exp", "roles", "aud", "nbf"));
+
+	@Test
+	public void readsTheSelectedMembers() throws Exception {
+		SelectedClaims claims = selector.read("{\"sub\":\"bob\",\"profile\":{\"a\":[1,2,{\"b\":null}]},"
+				+ "\"exp\":1500000000,\"roles\":[0,\"new.role\"],\"aud\":null}");
+
+		assertThat(claims.get("sub")).isEqualTo("bob");
+		assertThat(claims.get("exp")).isEqualTo(1500000000);
+		assertThat(claims.get("roles")).isEqualTo(Arrays.asList(0, "new.role"));
+		// present but null is not absent
+		assertThat(claims.containsKey("aud")).isTrue();
+		assertThat(claims.get("aud")).isNull();
+		assertThat(claims.containsKey("nbf")).isFalse();
+		assertThat(claims.get("nbf")).isNull();
+	}
+
+	@Test
+	public void readsTheOtherMembersOnDemand() throws Exception {
+		SelectedClaims claims = selector.read("{\"sub\":\"bob\",\"profile\":{\"name\":\"Bob\"},\"admin\":true}");
+
+		assertThat(claims.get("profile")).isEqualTo(Collections.singletonMap("name", "Bob"));
+		assertThat(claims.containsKey("admin")).isTrue();
+		assertThat(claims.containsKey("other")).isFalse();
+		assertThat(claims).hasSize(3).containsKeys("sub", "profile", "admin");
+	}
+
+	@Test(expected = MalformedJwtException.class)
+	public void rejectsAnythingButAnObject() throws Exception {
+		selector.read("[\"sub\",\"bob\"]");
+	}
+
+	@Test(expected = MalformedJwtException.class)
+	public void rejectsContentAfterTheObject() throws Exception {
+		selector.read("{\"sub\":\"bob\"}{\"sub\":\"alice\"}");
+	}
+
+	@Test(expected = Exception.class)
+	public void rejectsTruncatedJson() throws Exception {
+		selector.read("{\"sub\":\"bob\",\"profile\":{\"name\":");
+	}
+}
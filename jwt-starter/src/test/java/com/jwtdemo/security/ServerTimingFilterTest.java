@@ -0,0 +1,52 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ServerTimingFilterTest {
+
+	private final FilterChain authenticate = (request, response) -> {
+		ServerTiming.current().record("auth", System.nanoTime());
+		ServerTiming.current().recordDownstream("resource", 1_000_000, "total;dur=0.5");
+	};
+
+	@Test
+	public void sendsEveryPhaseByDefault() throws Exception {
+		String header = serverTiming(new ServerTimingFilter(), "203.0.113.7");
+
+		assertThat(header).contains("auth;dur=", "handler;dur=", "total;dur=", "resource;dur=", "resource.net;dur=");
+	}
+
+	@Test
+	public void sendsOnlyTheTotalToUntrustedCallers() throws Exception {
+		String header = serverTiming(new ServerTimingFilter(true, Collections.singletonList("127.0.0.1")), "203.0.113.7");
+
+		assertThat(header).startsWith("total;dur=").doesNotContain(",");
+	}
+
+	@Test
+	public void sendsEveryPhaseToTrustedCallers() throws Exception {
+		String header = serverTiming(new ServerTimingFilter(true, Collections.singletonList("127.0.0.1")), "127.0.0.1");
+
+		assertThat(header).contains("auth;dur=", "resource.total;dur=0.5");
+	}
+
+	private String serverTiming(ServerTimingFilter filter, String remoteAddress) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resource");
+		request.setRemoteAddr(remoteAddress);
+		request.addHeader(ServerTiming.REQUEST_ID_HEADER, "request-1");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, authenticate);
+
+		assertThat(response.getHeader(ServerTiming.REQUEST_ID_HEADER)).isEqualTo("request-1");
+		return response.getHeader(ServerTiming.HEADER);
+	}
+}
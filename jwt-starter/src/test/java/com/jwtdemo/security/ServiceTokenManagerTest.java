@@ -0,0 +1,86 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ServiceTokenManagerTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private final ExecutorService requests = Executors.newFixedThreadPool(10);
+	private ServiceTokenManager manager;
+
+	@After
+	public void stop() {
+		requests.shutdownNow();
+		if (manager != null) {
+			manager.destroy();
+		}
+	}
+
+	@Test
+	public void concurrentRequestsShareOneFetch() throws Exception {
+		CountDownLatch issuerBlocked = new CountDownLatch(1);
+		String token = token(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600);
+		manager = new ServiceTokenManager("test", () -> {
+			calls.incrementAndGet();
+			issuerBlocked.await();
+			return token;
+		});
+		manager.setTimeout(5000);
+		requests.submit(manager::afterPropertiesSet);
+		while (calls.get() == 0) {
+			Thread.sleep(10);
+		}
+
+		List<Future<String>> tokens = new ArrayList<>();
+		for (int i = 0; i < 9; i++) {
+			tokens.add(requests.submit(manager::getToken));
+		}
+		issuerBlocked.countDown();
+
+		for (Future<String> future : tokens) {
+			assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(token);
+		}
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestsDoNotCallTheIssuerDuringTheBackoff() {
+		manager = new ServiceTokenManager("test", () -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException("issuer is down");
+		});
+		manager.setMinRetryDelay(60000);
+		manager.afterPropertiesSet();
+
+		for (int i = 0; i < 10; i++) {
+			try {
+				manager.getToken();
+				fail("there is no token");
+			} catch (IllegalStateException e) {
+				assertThat(e.getMessage()).contains("retrying in");
+			}
+		}
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	private static String token(long exp) {
+		Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+		return base64.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+				+ base64.encodeToString(("{\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+	}
+}
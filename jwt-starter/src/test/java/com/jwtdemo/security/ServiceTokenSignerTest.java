@@ -0,0 +1,60 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.spec.InvalidKeySpecException;
+
+import javax.crypto.SecretKey;
+
+import org.junit.Test;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class ServiceTokenSignerTest {
+
+	private static final PrivateKey RSA = generate("RSA", 2048);
+
+	@Test
+	public void aSecretIsAnHmacKey() throws Exception {
+		String secret = "trdFmDVIKGhC8wR7be36Jyve3lqQRLTI";
+
+		SignatureAlgorithm algorithm = ServiceTokenSigner.algorithmFor(secret, null);
+
+		assertThat(algorithm).isEqualTo(SignatureAlgorithm.HS256);
+		assertThat(ServiceTokenSigner.buildSigningKey(secret, algorithm)).isInstanceOf(SecretKey.class);
+	}
+
+	@Test
+	public void privateKeysMayHaveLeadingWhitespaceAndAByteOrderMark() throws Exception {
+		String pem = "\uFEFF\n  " + KeyRingTest.pem("PRIVATE KEY", RSA.getEncoded(), "\r\n");
+
+		SignatureAlgorithm algorithm = ServiceTokenSigner.algorithmFor(pem, null);
+		Key key = ServiceTokenSigner.buildSigningKey(pem, algorithm);
+
+		assertThat(algorithm).isEqualTo(SignatureAlgorithm.RS256);
+		assertThat(key).isEqualTo(RSA);
+	}
+
+	@Test(expected = InvalidKeySpecException.class)
+	public void neverTakesAPkcs1PemForASecret() throws Exception {
+		ServiceTokenSigner.algorithmFor(KeyRingTest.pem("RSA PRIVATE KEY", RSA.getEncoded(), "\n"), null);
+	}
+
+	@Test(expected = InvalidKeySpecException.class)
+	public void neverTakesASec1PemForASecretEvenWithAnAlgorithm() throws Exception {
+		ServiceTokenSigner.buildSigningKey(KeyRingTest.pem("EC PRIVATE KEY", RSA.getEncoded(), "\n"), SignatureAlgorithm.HS256);
+	}
+
+	private static PrivateKey generate(String algorithm, int size) {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+			generator.initialize(size);
+			return generator.generateKeyPair().getPrivate();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
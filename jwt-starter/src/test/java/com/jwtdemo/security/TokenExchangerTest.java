@@ -0,0 +1,76 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class TokenExchangerTest {
+
+	private static final Key KEY = new SecretKeySpec("trdFmDVIKGhC8wR7be36Jyve3lqQRLTI".getBytes(StandardCharsets.UTF_8),
+			SignatureAlgorithm.HS256.getJcaName());
+
+	private final TokenExchanger exchanger = new TokenExchanger(KEY, SignatureAlgorithm.HS256, "resource", "resource.", 10);
+
+	@Test
+	public void exchangedTokensExpireWithTheUsersToken() {
+		Date expiration = inSeconds(3600);
+
+		String token = exchanger.exchange(user(expiration));
+
+		Claims claims = claims(token);
+		assertThat(claims.getExpiration()).isEqualTo(expiration);
+		assertThat(claims.getAudience()).isEqualTo("resource");
+		assertThat(claims.get("roles")).isEqualTo("resource.read");
+		assertThat(exchanger.exchange(user(expiration))).isEqualTo(token);
+	}
+
+	@Test
+	public void tokensWhichNeverExpireAreExchangedForTimeToLive() {
+		exchanger.setTimeToLive(TimeUnit.MINUTES.toMillis(5));
+		long now = System.currentTimeMillis();
+
+		Date expiration = claims(exchanger.exchange(user(null))).getExpiration();
+
+		assertThat(expiration.getTime()).isBetween(now + TimeUnit.MINUTES.toMillis(5) - 1000,
+				System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5));
+	}
+
+	@Test
+	public void overlappingSessionsShareTheTokenExpiringFirst() {
+		String longer = exchanger.exchange(user(inSeconds(3600)));
+		String shorter = exchanger.exchange(user(inSeconds(600)));
+
+		assertThat(shorter).isNotEqualTo(longer);
+		assertThat(exchanger.exchange(user(inSeconds(600)))).isEqualTo(shorter);
+		assertThat(exchanger.exchange(user(inSeconds(3600)))).isEqualTo(shorter);
+	}
+
+	private static Date inSeconds(long seconds) {
+		// tokens carry seconds
+		return new Date((System.currentTimeMillis() / 1000 + seconds) * 1000);
+	}
+
+	private static AuthenticatedUser user(Date expiration) {
+		return new AuthenticatedUser("bob", "token",
+				Arrays.asList(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("resource.read")),
+				expiration, Collections.emptyMap());
+	}
+
+	private static Claims claims(String token) {
+		return Jwts.parser().setSigningKey(KEY).parseClaimsJws(token).getBody();
+	}
+}
@@ -0,0 +1,93 @@
+package com.jwtdemo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+public class TokenPreCheckTest {
+
+	private final TokenPreCheck preCheck = new TokenPreCheck(200, new HashSet<>(Arrays.asList("HS256", "HS512")));
+
+	@Test
+	public void letsWellFormedTokensThrough() {
+		preCheck.check(token("{\"alg\":\"HS256\"}"));
+		preCheck.check(token("{\"typ\":\"JWT\", \"alg\" : \"HS512\"}"));
+	}
+
+	@Test
+	public void rejectsEmptyAndOversizedTokens() {
+		assertThat(rejection("")).isSameAs(InvalidTokenException.EMPTY);
+		assertThat(rejection(token("{\"alg\":\"HS256\"}") + new String(new char[200]).replace('\0', 'a')))
+				.isSameAs(InvalidTokenException.TOO_LONG);
+	}
+
+	@Test
+	public void rejectsTokensWithoutThreeNonEmptySegments() {
+		assertThat(rejection("abc.def")).isSameAs(InvalidTokenException.MALFORMED);
+		assertThat(rejection("abc.def.ghi.jkl")).isSameAs(InvalidTokenException.MALFORMED);
+		assertThat(rejection(".def.ghi")).isSameAs(InvalidTokenException.MALFORMED);
+		assertThat(rejection("abc..ghi")).isSameAs(InvalidTokenException.MALFORMED);
+		// unsigned tokens
+		assertThat(rejection("abc.def.")).isSameAs(InvalidTokenException.MALFORMED);
+	}
+
+	@Test
+	public void rejectsCharactersOutsideBase64url() {
+		assertThat(rejection("ab+c.def.ghi")).isSameAs(InvalidTokenException.NOT_BASE64URL);
+		assertThat(rejection("abc.de=f.ghi")).isSameAs(InvalidTokenException.NOT_BASE64URL);
+		assertThat(rejection("abc.def.gh\u00e9")).isSameAs(InvalidTokenException.NOT_BASE64URL);
+	}
+
+	@Test
+	public void rejectsHeadersWithoutAnAlgorithm() {
+		assertThat(rejection(token("{\"typ\":\"JWT\"}"))).isSameAs(InvalidTokenException.BAD_HEADER);
+		assertThat(rejection(token("{\"alg\":HS256}"))).isSameAs(InvalidTokenException.BAD_HEADER);
+		assertThat(rejection("abcde.def.ghi")).isSameAs(InvalidTokenException.BAD_HEADER);
+	}
+
+	@Test
+	public void rejectsAlgorithmsOurKeyCannotVerify() {
+		assertThat(rejection(token("{\"alg\":\"none\"}"))).isSameAs(InvalidTokenException.UNEXPECTED_ALGORITHM);
+		assertThat(rejection(token("{\"alg\":\"RS256\"}"))).isSameAs(InvalidTokenException.UNEXPECTED_ALGORITHM);
+	}
+
+	@Test
+	public void derivesTheAlgorithmsFromTheKey() throws Exception {
+		assertThat(TokenPreCheck.algorithmsFor(new SecretKeySpec(new byte[32], "HmacSHA256"), null))
+				.containsOnly("HS256", "HS384", "HS512");
+		KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+		rsa.initialize(2048);
+		assertThat(TokenPreCheck.algorithmsFor(rsa.generateKeyPair().getPublic(), null))
+				.containsOnly("RS256", "RS384", "RS512", "PS256", "PS384", "PS512");
+		KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+		ec.initialize(384);
+		assertThat(TokenPreCheck.algorithmsFor(ec.generateKeyPair().getPublic(), null)).containsOnly("ES384");
+		assertThat(TokenPreCheck.algorithmsFor(new SecretKeySpec(new byte[32], "HmacSHA256"), "HS512"))
+				.containsOnly("HS512");
+		assertThat(TokenPreCheck.algorithmsFor(Collections.emptyList(), null)).isEmpty();
+	}
+
+	private InvalidTokenException rejection(String token) {
+		try {
+			preCheck.check(token);
+		} catch (InvalidTokenException e) {
+			return e;
+		}
+		throw new AssertionError(token + " was not rejected");
+	}
+
+	private static String token(String header) {
+		Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+		return base64.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+				+ base64.encodeToString("{\"sub\":\"bob\"}".getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl";
+	}
+}
@@ -0,0 +1,195 @@
+package com.tokenservice;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.ClaimJwtException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+/**
+ * Batch endpoints for issuing large numbers of tokens, e.g. for load tests, and for verifying captured tokens. The request body is a stream of lines
+ * (<code>application/x-ndjson</code> or <code>text/plain</code>, a form would be consumed as request parameters) and
+ * so is the response, see {@link ParallelLineProcessor}.
+ *
+ */
+@RestController
+class BatchTokenController {
+
+	static final String NDJSON = "application/x-ndjson";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+
+	@Autowired
+	KeyRegistry keyRegistry;
+
+	@Autowired
+	ForkJoinPool signingPool;
+
+	@Autowired(required = false)
+	RoleDictionary roleDictionary;
+
+	@Value("${batch.window:1024}")
+	int window;
+
+	/**
+	 * Signs one claims set (a JSON object) per line of the request body and writes the tokens back, one per line and
+	 * in the same order. Lines which cannot be signed produce <code>{"error":"..."}</code> in place of their token.
+	 * RSA keys must have been registered, see <code>/keys</code>. <code>zip</code> and <code>compactRoles</code> are as
+	 * for <code>/token</code>.
+	 */
+	@PostMapping(path = "/tokens", consumes = { NDJSON, MediaType.TEXT_PLAIN_VALUE })
+	public void tokens(@RequestParam(required = false) String algo, @RequestParam(required = false) String symkey,
+			@RequestParam(required = false) String kid, @RequestParam(defaultValue = "false") boolean zip,
+			@RequestParam(defaultValue = "false") boolean compactRoles, HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		if (symkey == null && kid == null) {
+			throw new IllegalArgumentException("missing symKey or kid");
+		}
+		if (compactRoles && roleDictionary == null) {
+			throw new IllegalArgumentException("compactRoles requires roles.dictionary to be configured");
+		}
+		Key key;
+		SignatureAlgorithm algorithm;
+		if (kid != null) {
+			KeyRegistry.RegisteredKey registered = keyRegistry.get(kid);
+			key = registered.getSigningKey();
+			algorithm = algo == null ? registered.defaultAlgorithm : SignatureAlgorithm.valueOf(algo);
+		} else {
+			algorithm = algo == null ? SignatureAlgorithm.HS256 : SignatureAlgorithm.valueOf(algo);
+			key = new SecretKeySpec(symkey.getBytes("UTF-8"), algorithm.getJcaName());
+		}
+
+		response.setContentType("text/plain;charset=UTF-8");
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+			RawTokenSigner signer = new RawTokenSigner(algorithm, key, kid, zip);
+			if (compactRoles) {
+				signer.setRoleDictionary(roleDictionary);
+			}
+			new ParallelLineProcessor(signingPool, window).process(in, out, claims -> sign(claims, signer));
+		}
+	}
+
+	/**
+	 * Verifies one token per line of the request body and writes back one JSON result per line, in the same order:
+	 * <code>{"valid":true,"claims":{...}}</code> or <code>{"valid":false,"reason":"...","claims":{...}}</code>, claims
+	 * being absent when the token cannot even be decoded. Tokens are verified with <code>symkey</code>, with the
+	 * registered key <code>kid</code> or, when neither is given, with the registered key named by their own
+	 * <code>kid</code> header.
+	 */
+	@PostMapping(path = "/verifications", consumes = { NDJSON, MediaType.TEXT_PLAIN_VALUE })
+	public void verifications(@RequestParam(required = false) String symkey, @RequestParam(required = false) String kid,
+			HttpServletRequest request, HttpServletResponse response) throws Exception {
+		// one parser for the whole batch, shared by all threads
+		JwtParser parser;
+		if (kid != null) {
+			parser = keyRegistry.get(kid).getParser();
+		} else if (symkey != null) {
+			parser = new JoseJwtParser().setSigningKey(symkey.getBytes("UTF-8"));
+		} else {
+			parser = new JoseJwtParser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+				@Override
+				public Key resolveSigningKey(JwsHeader header, Claims claims) {
+					if (header.getKeyId() == null) {
+						throw new IllegalArgumentException("Token has no kid, pass symkey or kid");
+					}
+					return keyRegistry.get(header.getKeyId()).verificationKey;
+				}
+			});
+		}
+
+		response.setContentType(NDJSON + ";charset=UTF-8");
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+			new ParallelLineProcessor(signingPool, window).process(in, out, token -> verify(token.trim(), parser));
+		}
+	}
+
+	private static String verify(String token, JwtParser parser) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		try {
+			Claims claims = parser.parseClaimsJws(token).getBody();
+			result.put("valid", true);
+			result.put("claims", claims);
+		} catch (Exception e) {
+			result.put("valid", false);
+			result.put("reason", String.valueOf(e.getMessage()));
+			Object claims = e instanceof ClaimJwtException ? ((ClaimJwtException) e).getClaims() : decodeClaims(token);
+			if (claims != null) {
+				result.put("claims", claims);
+			}
+		}
+		try {
+			return MAPPER.writeValueAsString(result);
+		} catch (JsonProcessingException e) {
+			return error(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the token's claims without verifying anything, null if they cannot be decoded
+	 */
+	private static Map<String, Object> decodeClaims(String token) {
+		String[] parts = token.split("\\.");
+		if (parts.length < 2) {
+			return null;
+		}
+		try {
+			byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+			Map<String, Object> header = MAPPER.readValue(Base64.getUrlDecoder().decode(parts[0]), MAP_TYPE);
+			if (header.get("zip") != null || header.get(JwsHeader.COMPRESSION_ALGORITHM) != null) {
+				payload = JoseJwtParser.DEFLATE.decompress(payload);
+			}
+			return MAPPER.readValue(payload, MAP_TYPE);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static String sign(String claimsJson, RawTokenSigner signer) {
+		try {
+			return signer.sign(claimsJson);
+		} catch (Exception e) {
+			return error(e.getMessage());
+		}
+	}
+
+	static String error(String message) {
+		try {
+			return MAPPER.writeValueAsString(Collections.singletonMap("error", String.valueOf(message)));
+		} catch (JsonProcessingException e) {
+			return "{\"error\":\"unknown\"}";
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.tokenservice;
+
+import java.security.interfaces.ECKey;
+import java.util.Arrays;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * JWS carries ECDSA signatures as the fixed-length concatenation of R and S (RFC 7518, 3.4) whereas the JDK, and
+ * jjwt 0.6 which relies on it, produce and expect their ASN.1 DER encoding. These convert one into the other, see
+ * {@link RawTokenSigner} and {@link JoseJwtParser}.
+ *
+ * jwt-starter has its own copy of this class, as we do not depend on the starter: fix both.
+ *
+ */
+final class EcdsaSignatures {
+
+	private EcdsaSignatures() {
+	}
+
+	/**
+	 * @return the length of R || S for <code>algorithm</code>
+	 */
+	static int joseLength(SignatureAlgorithm algorithm) {
+		switch (algorithm) {
+		case ES256:
+			return 64;
+		case ES384:
+			return 96;
+		case ES512:
+			return 132;
+		default:
+			throw new IllegalArgumentException(algorithm + " is not an ECDSA algorithm");
+		}
+	}
+
+	/**
+	 * @return the ECDSA algorithm matching the key's curve
+	 */
+	static SignatureAlgorithm algorithmFor(ECKey key) {
+		int bits = key.getParams().getCurve().getField().getFieldSize();
+		return bits <= 256 ? SignatureAlgorithm.ES256 : bits <= 384 ? SignatureAlgorithm.ES384 : SignatureAlgorithm.ES512;
+	}
+
+	/**
+	 * @return whether <code>signature</code> is the canonical DER encoding of an ECDSA signature for
+	 *         <code>algorithm</code>: a SEQUENCE of exactly two minimal, positive INTEGERs no longer than the curve's
+	 *         order, and nothing else. Signatures are told apart by parsing rather than by their length, since a DER
+	 *         signature may be as long as the JOSE form.
+	 */
+	static boolean isDer(byte[] signature, SignatureAlgorithm algorithm) {
+		int size = joseLength(algorithm) / 2;
+		if (signature.length < 8 || signature[0] != 0x30) {
+			return false;
+		}
+		int offset = 2;
+		int contentLength = signature[1] & 0xff;
+		if (contentLength == 0x81) {
+			contentLength = signature[2] & 0xff;
+			offset = 3;
+			if (contentLength < 0x80) {
+				return false;
+			}
+		} else if (contentLength >= 0x80) {
+			return false;
+		}
+		if (offset + contentLength != signature.length) {
+			return false;
+		}
+		offset = derInteger(signature, offset, size);
+		return offset > 0 && derInteger(signature, offset, size) == signature.length;
+	}
+
+	/**
+	 * @return the offset after the INTEGER at <code>offset</code>, or -1 if there is no canonical one
+	 */
+	private static int derInteger(byte[] der, int offset, int size) {
+		if (offset + 2 > der.length || der[offset] != 0x02) {
+			return -1;
+		}
+		int length = der[offset + 1] & 0xff;
+		int start = offset + 2;
+		if (length == 0 || length > size + 1 || start + length > der.length) {
+			return -1;
+		}
+		boolean negative = (der[start] & 0x80) != 0;
+		boolean padded = length > 1 && der[start] == 0 && (der[start + 1] & 0x80) == 0;
+		boolean tooLong = length == size + 1 && der[start] != 0;
+		return negative || padded || tooLong ? -1 : start + length;
+	}
+
+	static byte[] derToJose(byte[] der, int length) {
+		if (der.length < 8 || der[0] != 0x30) {
+			throw new IllegalArgumentException("Invalid ECDSA signature");
+		}
+		int offset = (der[1] & 0xff) == 0x81 ? 3 : 2;
+		byte[] jose = new byte[length];
+		offset = copyInteger(der, offset, jose, 0, length / 2);
+		copyInteger(der, offset, jose, length / 2, length / 2);
+		return jose;
+	}
+
+	private static int copyInteger(byte[] der, int offset, byte[] jose, int to, int size) {
+		if (der[offset] != 0x02) {
+			throw new IllegalArgumentException("Invalid ECDSA signature");
+		}
+		int length = der[offset + 1] & 0xff;
+		int start = offset + 2;
+		// skip the sign byte and any other leading zero
+		while (length > size && der[start] == 0) {
+			start++;
+			length--;
+		}
+		if (length > size) {
+			throw new IllegalArgumentException("Invalid ECDSA signature");
+		}
+		System.arraycopy(der, start, jose, to + size - length, length);
+		return start + length;
+	}
+
+	static byte[] joseToDer(byte[] jose) {
+		int size = jose.length / 2;
+		byte[] r = integer(Arrays.copyOfRange(jose, 0, size));
+		byte[] s = integer(Arrays.copyOfRange(jose, size, jose.length));
+		int contentLength = 2 + r.length + 2 + s.length;
+		int headerLength = contentLength >= 128 ? 3 : 2;
+
+		byte[] der = new byte[headerLength + contentLength];
+		der[0] = 0x30;
+		if (contentLength >= 128) {
+			der[1] = (byte) 0x81;
+		}
+		der[headerLength - 1] = (byte) contentLength;
+		int offset = headerLength;
+		der[offset++] = 0x02;
+		der[offset++] = (byte) r.length;
+		System.arraycopy(r, 0, der, offset, r.length);
+		offset += r.length;
+		der[offset++] = 0x02;
+		der[offset++] = (byte) s.length;
+		System.arraycopy(s, 0, der, offset, s.length);
+		return der;
+	}
+
+	/**
+	 * @return the minimal DER INTEGER content for the unsigned big-endian <code>value</code>
+	 */
+	private static byte[] integer(byte[] value) {
+		int start = 0;
+		while (start < value.length - 1 && value[start] == 0) {
+			start++;
+		}
+		boolean negative = (value[start] & 0x80) != 0;
+		byte[] integer = new byte[value.length - start + (negative ? 1 : 0)];
+		System.arraycopy(value, start, integer, negative ? 1 : 0, value.length - start);
+		return integer;
+	}
+}
@@ -0,0 +1,122 @@
+package com.tokenservice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import io.jsonwebtoken.CompressionCodec;
+import io.jsonwebtoken.CompressionException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultJwtParser;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+
+/**
+ * jjwt's parser, except that it reads tokens as we issue them (see {@link RawTokenSigner}) and as RFC 7515/7516 define
+ * them, where jjwt 0.6 does not: ECDSA signatures in their JOSE form (R || S), of which jjwt only verifies the DER form,
+ * and <code>"zip":"DEF"</code> payloads in raw DEFLATE, where jjwt only inflates the zlib format of its
+ * <code>calg</code> header. We still accept both of jjwt's forms.
+ *
+ */
+class JoseJwtParser extends DefaultJwtParser {
+
+	/**
+	 * We do not inflate payloads beyond this many bytes
+	 */
+	private static final int MAX_PAYLOAD_LENGTH = 1 << 20;
+
+	JoseJwtParser() {
+		setCompressionCodecResolver(header -> {
+			// jjwt 0.6 only knows the draft name of the header, calg
+			Object zip = header.containsKey("zip") ? header.get("zip") : header.getCompressionAlgorithm();
+			if (zip == null) {
+				return null;
+			}
+			if (!"DEF".equals(zip)) {
+				throw new CompressionException("Unsupported compression algorithm " + zip);
+			}
+			return DEFLATE;
+		});
+	}
+
+	@Override
+	protected JwtSignatureValidator createSignatureValidator(SignatureAlgorithm algorithm, Key key) {
+		JwtSignatureValidator validator = super.createSignatureValidator(algorithm, key);
+		if (!algorithm.isEllipticCurve()) {
+			return validator;
+		}
+		int joseLength = EcdsaSignatures.joseLength(algorithm);
+		return (jwtWithoutSignature, base64UrlEncodedSignature) -> {
+			byte[] signature;
+			try {
+				signature = Base64.getUrlDecoder().decode(base64UrlEncodedSignature);
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+			// told apart by parsing, not by length: a DER signature may be as long as the JOSE form
+			if (EcdsaSignatures.isDer(signature, algorithm)) {
+				return validator.isValid(jwtWithoutSignature, base64UrlEncodedSignature);
+			}
+			if (signature.length != joseLength) {
+				return false;
+			}
+			return validator.isValid(jwtWithoutSignature,
+					Base64.getUrlEncoder().withoutPadding().encodeToString(EcdsaSignatures.joseToDer(signature)));
+		};
+	}
+
+	static final CompressionCodec DEFLATE = new CompressionCodec() {
+
+		@Override
+		public String getAlgorithmName() {
+			return "DEF";
+		}
+
+		@Override
+		public byte[] compress(byte[] payload) {
+			throw new CompressionException("Tokens are compressed by RawTokenSigner");
+		}
+
+		@Override
+		public byte[] decompress(byte[] compressed) {
+			try {
+				// raw DEFLATE as we issue it, zlib as jjwt 0.6 does
+				return inflate(compressed, true);
+			} catch (IOException e) {
+				try {
+					return inflate(compressed, false);
+				} catch (IOException retry) {
+					throw new CompressionException("Invalid compressed payload", e);
+				}
+			}
+		}
+
+		private byte[] inflate(byte[] compressed, boolean nowrap) throws IOException {
+			Inflater inflater = new Inflater(nowrap);
+			// with nowrap the Inflater wants an extra dummy byte after the stream
+			byte[] input = nowrap ? Arrays.copyOf(compressed, compressed.length + 1) : compressed;
+			try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(input), inflater)) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) > 0) {
+					out.write(buffer, 0, read);
+					if (out.size() > MAX_PAYLOAD_LENGTH) {
+						throw new CompressionException("Payload inflates beyond " + MAX_PAYLOAD_LENGTH + " bytes");
+					}
+				}
+				if (!inflater.finished()) {
+					throw new EOFException("Truncated compressed payload");
+				}
+				return out.toByteArray();
+			} finally {
+				inflater.end();
+			}
+		}
+	};
+}
@@ -0,0 +1,73 @@
+package com.tokenservice;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Reads lines, transforms them in parallel and writes the results, one per line, in the same order as the input.
+ *
+ * At most <code>window</code> lines are in flight: once the window is full we wait for the oldest line before reading
+ * more. Memory use is therefore bounded whatever the size of the input, and results are written as soon as they and
+ * all the lines before them are done.
+ *
+ */
+class ParallelLineProcessor {
+
+	private final Executor executor;
+	private final int window;
+
+	ParallelLineProcessor(Executor executor, int window) {
+		this.executor = executor;
+		this.window = window;
+	}
+
+	/**
+	 * @param function must not throw, it should turn failures into a result line instead. Blank lines are skipped.
+	 * @return how many lines we processed
+	 */
+	long process(BufferedReader in, Writer out, Function<String, String> function) throws IOException {
+		Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>(window);
+		long count = 0;
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			if (inFlight.size() == window) {
+				writeOldest(inFlight, out);
+			}
+			String input = line;
+			inFlight.add(CompletableFuture.supplyAsync(() -> function.apply(input), executor));
+			count++;
+		}
+		while (!inFlight.isEmpty()) {
+			writeOldest(inFlight, out);
+		}
+		out.flush();
+		return count;
+	}
+
+	private static void writeOldest(Deque<CompletableFuture<String>> inFlight, Writer out) throws IOException {
+		CompletableFuture<String> oldest = inFlight.poll();
+		if (!oldest.isDone()) {
+			// let the client have what we have so far while we wait
+			out.flush();
+		}
+		try {
+			out.write(oldest.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+		out.write('\n');
+	}
+}
@@ -0,0 +1,237 @@
+package com.tokenservice;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Deflater;
+
+import javax.crypto.Mac;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.crypto.DefaultJwtSigner;
+
+/**
+ * Signs the caller's claims JSON as it is: we check it in one streaming pass, then base64url-encode and sign its bytes.
+ * Unlike building the token with jjwt, the claims are never parsed into a Map and serialized back to JSON. Optionally,
+ * the payload is compressed and known roles are replaced by their index in a {@link RoleDictionary}.
+ *
+ * One signer is meant to sign many tokens with the same key, from any number of threads: it keeps the encoded
+ * header and a pool of initialized Mac/Signature instances. ECDSA signatures come out in their JOSE form, R || S,
+ * which jjwt 0.6 cannot produce.
+ *
+ */
+class RawTokenSigner {
+
+	private static final JsonFactory JSON = new JsonFactory();
+	private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+	private final SignatureAlgorithm algorithm;
+	private final Key key;
+	private final byte[] encodedHeader;
+	private final Queue<Object> engines = new ConcurrentLinkedQueue<>();
+	private final DefaultJwtSigner fallback;
+	private final Queue<Deflater> deflaters;
+	private RoleDictionary roleDictionary;
+
+	/**
+	 * @param kid goes in the header unless it is null
+	 */
+	RawTokenSigner(SignatureAlgorithm algorithm, Key key, String kid) {
+		this(algorithm, key, kid, false);
+	}
+
+	/**
+	 * @param deflate compress the payload (<code>"zip":"DEF"</code> header)
+	 */
+	RawTokenSigner(SignatureAlgorithm algorithm, Key key, String kid, boolean deflate) {
+		this.algorithm = algorithm;
+		this.key = key;
+		this.encodedHeader = BASE64URL.encode(header(algorithm, kid, deflate));
+		this.deflaters = deflate ? new ConcurrentLinkedQueue<>() : null;
+		// RSASSA-PSS needs a provider with MGF1 support (e.g. BouncyCastle), leave it to jjwt
+		this.fallback = algorithm.isRsa() && algorithm.name().startsWith("PS") ? new DefaultJwtSigner(algorithm, key) : null;
+	}
+
+	/**
+	 * Carry known roles by their index in <code>roleDictionary</code>, see {@link RoleDictionary}
+	 */
+	void setRoleDictionary(RoleDictionary roleDictionary) {
+		this.roleDictionary = roleDictionary;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if <code>claimsJson</code> is not a JSON object or a registered claim has the
+	 *         wrong type
+	 */
+	String sign(String claimsJson) throws GeneralSecurityException {
+		validate(claimsJson);
+		if (roleDictionary != null) {
+			claimsJson = roleDictionary.compact(claimsJson);
+		}
+		byte[] claims = claimsJson.getBytes(StandardCharsets.UTF_8);
+		byte[] payload = BASE64URL.encode(deflaters == null ? claims : deflate(claims));
+		int signingInputLength = encodedHeader.length + 1 + payload.length;
+
+		if (fallback != null) {
+			byte[] signingInput = new byte[signingInputLength];
+			System.arraycopy(encodedHeader, 0, signingInput, 0, encodedHeader.length);
+			signingInput[encodedHeader.length] = '.';
+			System.arraycopy(payload, 0, signingInput, encodedHeader.length + 1, payload.length);
+			String jwtWithoutSignature = new String(signingInput, StandardCharsets.US_ASCII);
+			return jwtWithoutSignature + '.' + fallback.sign(jwtWithoutSignature);
+		}
+
+		// header.payload.signature in one buffer, room for the signature of an RSA 4096 key
+		byte[] token = new byte[signingInputLength + 1 + 684];
+		System.arraycopy(encodedHeader, 0, token, 0, encodedHeader.length);
+		token[encodedHeader.length] = '.';
+		System.arraycopy(payload, 0, token, encodedHeader.length + 1, payload.length);
+		byte[] signature = BASE64URL.encode(sign(token, signingInputLength));
+		if (signingInputLength + 1 + signature.length > token.length) {
+			token = Arrays.copyOf(token, signingInputLength + 1 + signature.length);
+		}
+		token[signingInputLength] = '.';
+		System.arraycopy(signature, 0, token, signingInputLength + 1, signature.length);
+		return new String(token, 0, signingInputLength + 1 + signature.length, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Engines go back to the pool only once they signed: one which threw may be left half way through a signature
+	 */
+	private byte[] sign(byte[] input, int length) throws GeneralSecurityException {
+		Object engine = engines.poll();
+		if (algorithm.isHmac()) {
+			Mac mac = engine != null ? (Mac) engine : newMac();
+			mac.update(input, 0, length);
+			byte[] signature = mac.doFinal();
+			engines.offer(mac);
+			return signature;
+		}
+		Signature signer = engine != null ? (Signature) engine : newSignature();
+		signer.update(input, 0, length);
+		byte[] signature = signer.sign();
+		engines.offer(signer);
+		// the JDK produces DER, JWS wants R || S
+		return algorithm.isEllipticCurve()
+				? EcdsaSignatures.derToJose(signature, EcdsaSignatures.joseLength(algorithm))
+				: signature;
+	}
+
+	/**
+	 * The header JSON, written by Jackson so that the <code>kid</code> is escaped whatever its characters
+	 */
+	private static byte[] header(SignatureAlgorithm algorithm, String kid, boolean deflate) {
+		StringWriter out = new StringWriter(64);
+		try (JsonGenerator generator = JSON.createGenerator(out)) {
+			generator.writeStartObject();
+			generator.writeStringField("alg", algorithm.getValue());
+			if (kid != null) {
+				generator.writeStringField("kid", kid);
+			}
+			if (deflate) {
+				generator.writeStringField("zip", "DEF");
+			}
+			generator.writeEndObject();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Raw DEFLATE (RFC 1951) as RFC 7516 asks for. Deflaters hold native memory, we reuse them.
+	 */
+	private byte[] deflate(byte[] claims) {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null) {
+			deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		}
+		try {
+			deflater.setInput(claims);
+			deflater.finish();
+			byte[] buffer = new byte[claims.length + 64];
+			int length = 0;
+			while (!deflater.finished()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				length += deflater.deflate(buffer, length, buffer.length - length);
+			}
+			return Arrays.copyOf(buffer, length);
+		} finally {
+			deflater.reset();
+			deflaters.offer(deflater);
+		}
+	}
+
+	private Mac newMac() throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(algorithm.getJcaName());
+		mac.init(key);
+		return mac;
+	}
+
+	private Signature newSignature() throws GeneralSecurityException {
+		if (!(key instanceof PrivateKey)) {
+			throw new IllegalArgumentException(algorithm.getValue() + " requires a private key");
+		}
+		Signature signature = Signature.getInstance(algorithm.getJcaName());
+		signature.initSign((PrivateKey) key);
+		return signature;
+	}
+
+	/**
+	 * One streaming pass: a single JSON object whose registered claims have the types a JWT validator expects
+	 */
+	static void validate(String claimsJson) {
+		try (JsonParser parser = JSON.createParser(claimsJson)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Claims must be a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (value == null) {
+					throw new IllegalArgumentException("Truncated claims JSON");
+				}
+				switch (name) {
+				case Claims.EXPIRATION:
+				case Claims.NOT_BEFORE:
+				case Claims.ISSUED_AT:
+					if (!value.isNumeric()) {
+						throw new IllegalArgumentException("Claim " + name + " must be a number of seconds");
+					}
+					break;
+				case Claims.SUBJECT:
+				case Claims.AUDIENCE:
+				case Claims.ISSUER:
+				case Claims.ID:
+					if (value != JsonToken.VALUE_STRING) {
+						throw new IllegalArgumentException("Claim " + name + " must be a string");
+					}
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			if (parser.getCurrentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+				throw new IllegalArgumentException("Unexpected content after the claims");
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid claims JSON: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.tokenservice;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Role names shared with the applications (<code>jwt.roleDictionary</code>) so that tokens carry the index of each
+ * known role rather than its name: <code>"roles":"ADMIN,resource.read,new.role"</code> becomes
+ * <code>"roles":[0,5,"new.role"]</code>, roles missing from the dictionary keep their name.
+ *
+ * The dictionary is append-only: tokens already issued refer to roles by their position, i.e. their line number
+ * starting at 0. Blank and duplicate lines are rejected rather than skipped, as skipping them would shift every
+ * following index.
+ *
+ * The applications read the same file with <code>com.jwtdemo.security.RoleDictionary</code> in jwt-starter, which
+ * this service does not depend on: both copies must accept exactly the same files.
+ *
+ */
+class RoleDictionary {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private final Map<String, Integer> indexes = new HashMap<>();
+	private final String claimName;
+
+	/**
+	 * @throws IllegalArgumentException for a blank or duplicate name, or one with a comma
+	 */
+	RoleDictionary(List<String> names, String claimName) {
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			if (name.trim().isEmpty() || name.indexOf(',') >= 0 || !name.equals(name.trim())) {
+				throw new IllegalArgumentException("Invalid role name \"" + name + "\" at index " + i);
+			}
+			if (indexes.putIfAbsent(name, i) != null) {
+				throw new IllegalArgumentException("Duplicate role name " + name + " at index " + i);
+			}
+		}
+		this.claimName = claimName;
+	}
+
+	/**
+	 * One role per line, surrounding spaces are ignored
+	 *
+	 * @throws IllegalArgumentException for a blank or duplicate line
+	 */
+	static RoleDictionary load(Path path, String claimName) throws IOException {
+		return new RoleDictionary(Files.readAllLines(path, StandardCharsets.UTF_8).stream().map(String::trim)
+				.collect(Collectors.toList()), claimName);
+	}
+
+	/**
+	 * Rewrites the role claim of <code>claimsJson</code>, if it has one, in a single streaming pass. Every other member
+	 * is copied as it is.
+	 */
+	String compact(String claimsJson) {
+		StringWriter out = new StringWriter(claimsJson.length());
+		try (JsonParser parser = JSON.createParser(claimsJson); JsonGenerator generator = JSON.createGenerator(out)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Claims must be a JSON object");
+			}
+			generator.writeStartObject();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				generator.writeFieldName(name);
+				if (claimName.equals(name) && value == JsonToken.VALUE_STRING) {
+					writeRoles(parser.getText(), generator);
+				} else {
+					generator.copyCurrentStructure(parser);
+				}
+			}
+			generator.writeEndObject();
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid claims JSON: " + e.getMessage());
+		}
+		return out.toString();
+	}
+
+	private void writeRoles(String roles, JsonGenerator generator) throws IOException {
+		generator.writeStartArray();
+		for (String role : roles.split(",")) {
+			role = role.trim();
+			if (role.isEmpty()) {
+				continue;
+			}
+			Integer index = indexes.get(role);
+			if (index != null) {
+				generator.writeNumber(index);
+			} else {
+				generator.writeString(role);
+			}
+		}
+		generator.writeEndArray();
+	}
+}
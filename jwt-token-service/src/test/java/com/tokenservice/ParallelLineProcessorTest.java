@@ -0,0 +1,78 @@
+package com.tokenservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelLineProcessorTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@After
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void writesResultsInTheOrderOfTheInput() throws Exception {
+		StringBuilder input = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			input.append(i).append('\n');
+			expected.append("token ").append(i).append('\n');
+		}
+		StringWriter out = new StringWriter();
+
+		long count = new ParallelLineProcessor(executor, 16).process(reader(input.toString()), out, line -> {
+			// later lines often finish first
+			LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(100000));
+			return "token " + line;
+		});
+
+		assertThat(count).isEqualTo(1000);
+		assertThat(out.toString()).isEqualTo(expected.toString());
+	}
+
+	@Test
+	public void skipsBlankLines() throws Exception {
+		StringWriter out = new StringWriter();
+
+		long count = new ParallelLineProcessor(executor, 4).process(reader("a\n\n  \nb\n"), out, String::toUpperCase);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(out.toString()).isEqualTo("A\nB\n");
+	}
+
+	@Test
+	public void neverHasMoreThanTheWindowInFlight() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			input.append(i).append('\n');
+		}
+
+		new ParallelLineProcessor(executor, 3).process(reader(input.toString()), new StringWriter(), line -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			LockSupport.parkNanos(50000);
+			running.decrementAndGet();
+			return line;
+		});
+
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+	}
+
+	private static BufferedReader reader(String input) {
+		return new BufferedReader(new StringReader(input));
+	}
+}
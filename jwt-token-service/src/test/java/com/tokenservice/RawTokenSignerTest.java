@@ -0,0 +1,86 @@
+package com.tokenservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class RawTokenSignerTest {
+
+	private static final String CLAIMS = "{\"sub\":\"bob\",\"aud\":\"gateway\",\"exp\":"
+			+ TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + 3600000) + ",\"roles\":\"ADMIN\"}";
+
+	@Test
+	public void hmacTokensVerify() throws Exception {
+		Key key = new SecretKeySpec("trdFmDVIKGhC8wR7be36Jyve3lqQRLTI".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+		assertVerifies(SignatureAlgorithm.HS256, key, key);
+	}
+
+	@Test
+	public void rsaTokensVerify() throws Exception {
+		KeyPair keyPair = generate("RSA", 2048);
+		assertVerifies(SignatureAlgorithm.RS256, keyPair.getPrivate(), keyPair.getPublic());
+	}
+
+	@Test
+	public void ecdsaTokensVerify() throws Exception {
+		KeyPair keyPair = generate("EC", 256);
+		assertVerifies(SignatureAlgorithm.ES256, keyPair.getPrivate(), keyPair.getPublic());
+	}
+
+	@Test
+	public void escapesTheKid() throws Exception {
+		Key key = new SecretKeySpec(new byte[32], "HmacSHA256");
+		String kid = "a\"b\\c\n";
+
+		String token = new RawTokenSigner(SignatureAlgorithm.HS256, key, kid).sign(CLAIMS);
+
+		assertThat(new JoseJwtParser().setSigningKey(key).parseClaimsJws(token).getHeader().getKeyId()).isEqualTo(kid);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsClaimsWhichAreNotAnObject() throws Exception {
+		new RawTokenSigner(SignatureAlgorithm.HS256, new SecretKeySpec(new byte[32], "HmacSHA256"), null)
+				.sign("[\"bob\"]");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMistypedRegisteredClaims() throws Exception {
+		new RawTokenSigner(SignatureAlgorithm.HS256, new SecretKeySpec(new byte[32], "HmacSHA256"), null)
+				.sign("{\"sub\":\"bob\",\"exp\":\"tomorrow\"}");
+	}
+
+	private static void assertVerifies(SignatureAlgorithm algorithm, Key signingKey, Key verificationKey)
+			throws Exception {
+		for (boolean deflate : new boolean[] { false, true }) {
+			RawTokenSigner signer = new RawTokenSigner(algorithm, signingKey, "kid-1", deflate);
+			// twice, the second time with a pooled engine
+			for (int i = 0; i < 2; i++) {
+				Jws<Claims> jws = new JoseJwtParser().setSigningKey(verificationKey).parseClaimsJws(signer.sign(CLAIMS));
+
+				assertThat(jws.getHeader().getAlgorithm()).isEqualTo(algorithm.getValue());
+				assertThat(jws.getHeader().getKeyId()).isEqualTo("kid-1");
+				assertThat(jws.getBody().getSubject()).isEqualTo("bob");
+				assertThat(jws.getBody().getAudience()).isEqualTo("gateway");
+				assertThat(jws.getBody().get("roles")).isEqualTo("ADMIN");
+			}
+		}
+	}
+
+	private static KeyPair generate(String algorithm, int size) throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+		generator.initialize(size);
+		return generator.generateKeyPair();
+	}
+}
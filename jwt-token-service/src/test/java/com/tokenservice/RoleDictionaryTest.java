@@ -0,0 +1,55 @@
+package com.tokenservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RoleDictionaryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void replacesKnownRolesByTheirLine() throws Exception {
+		RoleDictionary dictionary = RoleDictionary.load(write("ADMIN\n resource.read \r\nresource.write\n"), "roles");
+
+		assertThat(dictionary.compact("{\"sub\":\"bob\",\"roles\":\"resource.write, ADMIN,new.role\",\"n\":[1,{\"a\":2}]}"))
+				.isEqualTo("{\"sub\":\"bob\",\"roles\":[2,0,\"new.role\"],\"n\":[1,{\"a\":2}]}");
+	}
+
+	@Test
+	public void leavesOtherClaimsAlone() {
+		RoleDictionary dictionary = new RoleDictionary(Arrays.asList("ADMIN"), "groups");
+
+		assertThat(dictionary.compact("{\"roles\":\"ADMIN\",\"groups\":\"ADMIN\"}"))
+				.isEqualTo("{\"roles\":\"ADMIN\",\"groups\":[0]}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBlankLines() throws Exception {
+		RoleDictionary.load(write("ADMIN\n\nresource.read\n"), "roles");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDuplicateLines() throws Exception {
+		RoleDictionary.load(write("ADMIN\nresource.read\nADMIN\n"), "roles");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNamesWithAComma() {
+		new RoleDictionary(Arrays.asList("ADMIN", "resource.read,resource.write"), "roles");
+	}
+
+	private Path write(String content) throws Exception {
+		Path path = folder.newFile().toPath();
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path;
+	}
+}
@@ -1,23 +1,32 @@
 package com.resource;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.jwtdemo.security.RequiresAuthority;
 
 @RestController
 public class ClientResourceController {
 
 	@GetMapping
-	@PreAuthorize("hasAuthority('resource.read')")
-	public String read(Principal principal) {
-		return String.format("read %s's resource", principal.getName()); 
+	@RequiresAuthority("resource.read")
+	public String read(Principal principal, WebRequest request) {
+		String body = String.format("read %s's resource", principal.getName());
+		// lets the gateway revalidate its cached copy with If-None-Match, a match gets a 304 without body
+		if (request.checkNotModified('"' + DigestUtils.md5DigestAsHex(body.getBytes(StandardCharsets.UTF_8)) + '"')) {
+			return null;
+		}
+		return body;
 	}
 	@RequestMapping(method = { RequestMethod.POST, RequestMethod.PUT })
-	@PreAuthorize("hasAuthority('resource.write')")
+	@RequiresAuthority("resource.write")
 	public String write(Principal principal) {
 		return String.format("wrote %s's resource", principal.getName());
 	}
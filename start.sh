@@ -2,7 +2,16 @@
 
 set -eu
 
-profile=symmetrical
+profile=${1:-symmetrical}
+
+backendEnv=()
+gatewayEnv=()
+if [ "$profile" == "asymmetrical" ]; then
+  ./generateGatewayKeys.sh
+  # backend-service and resource-service only accept tokens signed by the gateway
+  backendEnv=(JWT_KEY="$(cat gateway-public.key)")
+  gatewayEnv=(JWT_SERVICETOKEN_SIGNINGKEY="$(cat gateway-private.key)")
+fi
 
 echo "Starting token-service ..."
 pushd jwt-token-service
@@ -17,20 +26,20 @@ popd
 
 echo "Push backend-service ..."
 pushd backend-service
-mvn spring-boot:run -Drun.profiles=$profile &
+env "${backendEnv[@]}" mvn spring-boot:run -Drun.profiles=$profile &
 
 popd
 
 echo "Push resource-service ..."
 pushd resource-service
 mvn package
-mvn spring-boot:run -Drun.profiles=$profile &
+env "${backendEnv[@]}" mvn spring-boot:run -Drun.profiles=$profile &
 
 popd
 
 
 echo "Push gateway ..."
 pushd gateway-app
-mvn spring-boot:run -Drun.profiles=$profile &
+env "${gatewayEnv[@]}" mvn spring-boot:run -Drun.profiles=$profile &
 
 popd